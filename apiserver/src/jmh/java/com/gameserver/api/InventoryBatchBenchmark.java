@@ -0,0 +1,92 @@
+package com.gameserver.api;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the inventories of {@code userCount} players with one batched query versus one
+ * getUserInventoryItems() call per player (issued concurrently). The cache is disabled
+ * so both variants hit the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventoryBatchBenchmark {
+
+    private static final int USERS = 1_000;
+    private static final int ITEMS_PER_USER = 20;
+
+    @Param({"10", "50"})
+    public int userCount;
+
+    private Vertx vertx;
+    private DatabaseService databaseService;
+    private List<Integer> userIds;
+
+    @Setup
+    public void setUp() throws Exception {
+        vertx = Vertx.vertx();
+        // Without the lookup batcher, or the single calls would be merged into one query too
+        databaseService = new DatabaseService(vertx, "bench_batch_" + System.nanoTime(),
+            new JsonObject()
+                .put("inventory.cache.maxItems", 0)
+                .put("db.lookup.maxBatchSize", 1));
+        databaseService.init()
+            .compose(v -> databaseService.client().query(
+                "INSERT INTO users (username, password) "
+                    + "SELECT 'bulk' || X, 'secret' FROM SYSTEM_RANGE(1, " + USERS + ")").execute())
+            .compose(v -> databaseService.client().query(
+                "INSERT INTO inventory (user_id, item_name, item_type, quantity, properties) "
+                    + "SELECT 3 + U.X, 'Item ' || I.X, 'material', 1, JSON '{\"weight\": 1}' "
+                    + "FROM SYSTEM_RANGE(1, " + USERS + ") U, SYSTEM_RANGE(1, " + ITEMS_PER_USER + ") I").execute())
+            .toCompletionStage().toCompletableFuture().get();
+
+        userIds = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            userIds.add(4 + i * (USERS / userCount));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        databaseService.close().toCompletionStage().toCompletableFuture().get();
+        vertx.close().toCompletionStage().toCompletableFuture().get();
+    }
+
+    @Benchmark
+    public Map<Integer, List<InventoryItem>> batched() throws Exception {
+        return databaseService.getUserInventories(userIds)
+            .toCompletionStage().toCompletableFuture().get();
+    }
+
+    @Benchmark
+    public CompositeFuture singleCalls() throws Exception {
+        List<Future<?>> loads = new ArrayList<>(userIds.size());
+        for (Integer userId : userIds) {
+            loads.add(databaseService.getUserInventoryItems(userId));
+        }
+        return Future.all(loads).toCompletionStage().toCompletableFuture().get();
+    }
+}
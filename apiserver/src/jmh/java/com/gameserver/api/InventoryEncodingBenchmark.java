@@ -0,0 +1,58 @@
+package com.gameserver.api;
+
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode time of an inventory response in each negotiable format. The payload sizes are
+ * printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryEncodingBenchmark {
+
+    @Param({"3", "50", "200"})
+    public int itemCount;
+
+    @Param({"JSON", "CBOR", "MESSAGE_PACK"})
+    public String formatName;
+
+    private ResponseFormat format;
+    private List<InventoryItem> items;
+
+    @Setup
+    public void setUp() {
+        format = ResponseFormat.valueOf(formatName);
+        items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new InventoryItem("Item " + i, i % 2 == 0 ? "weapon" : "consumable", i + 1,
+                ("{\"damage\":" + i + ",\"durability\":100,\"enchantment\":\"fire\",\"weight\":2.5}")
+                    .getBytes(StandardCharsets.UTF_8)));
+        }
+        System.out.printf("%n%s, %d items: %d bytes%n", format, itemCount, encode().length());
+    }
+
+    @Benchmark
+    public Buffer encode() {
+        return format.inventory(Buffer.buffer(InventoryJsonWriter.estimateSize(itemCount)), 1, items);
+    }
+}
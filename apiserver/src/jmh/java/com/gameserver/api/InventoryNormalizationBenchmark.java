@@ -0,0 +1,107 @@
+package com.gameserver.api;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryNormalizationBenchmark {
+
+    @Param({"3", "50", "200"})
+    public int itemCount;
+
+    private List<Object[]> rows;
+    private List<InventoryItem> items;
+
+    @Setup
+    public void setUp() {
+        rows = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            // item_name, item_type, quantity, properties as stored in the inventory table
+            rows.add(new Object[] {
+                "Item " + i,
+                i % 2 == 0 ? "weapon" : "consumable",
+                i + 1,
+                "{\"damage\":" + i + ",\"durability\":100}"
+            });
+        }
+        items = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            items.add(new InventoryItem((String) row[0], (String) row[1], (Integer) row[2],
+                ((String) row[3]).getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * The pre-JSON-column path: parse each row's properties into a tree, then encode it again.
+     */
+    @Benchmark
+    public String legacyParseAndEncode() {
+        JsonArray inventory = new JsonArray();
+        for (Object[] row : rows) {
+            JsonObject normalizedItem = new JsonObject()
+                .put("item_name", row[0])
+                .put("item_type", row[1])
+                .put("quantity", row[2]);
+            try {
+                normalizedItem.put("properties", new JsonObject((String) row[3]));
+            } catch (Exception e) {
+                normalizedItem.put("properties", new JsonObject());
+            }
+            inventory.add(normalizedItem);
+        }
+        return new JsonObject()
+            .put("userId", 1)
+            .put("inventory", inventory)
+            .encode();
+    }
+
+    /**
+     * The same tokens written into a heap buffer sized from the estimate.
+     */
+    @Benchmark
+    public Buffer rawPassThrough() {
+        return InventoryJsonWriter.write(Buffer.buffer(InventoryJsonWriter.estimateSize(items.size())), 1, items);
+    }
+
+    /**
+     * The HTTP path: the same tokens written into a pooled buffer, released once sent.
+     */
+    @Benchmark
+    public int rawPassThroughPooled() {
+        ByteBuf pooled = PooledByteBufAllocator.DEFAULT.buffer(InventoryJsonWriter.estimateSize(items.size()));
+        try {
+            return InventoryJsonWriter.write(Buffer.buffer(pooled), 1, items).length();
+        } finally {
+            pooled.release();
+        }
+    }
+
+    @Benchmark
+    public JsonArray toJsonTree() {
+        return DatabaseService.toJsonArray(items);
+    }
+}
@@ -0,0 +1,81 @@
+package com.gameserver.api;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private Vertx vertx;
+    private JwtService jwtService;
+    private JwtService uncachedJwtService;
+    private String bearerToken;
+
+    @Setup
+    public void setUp() {
+        vertx = Vertx.vertx();
+        jwtService = new JwtService(vertx);
+        uncachedJwtService = new JwtService(vertx, new JsonObject().put("jwt.cache.maxSize", 0));
+        bearerToken = "Bearer " + jwtService.generateToken(1, "player1");
+    }
+
+    @TearDown
+    public void tearDown() {
+        vertx.close();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(1, "player1");
+    }
+
+    @Benchmark
+    public Object validateToken() {
+        return uncachedJwtService.validateToken(bearerToken);
+    }
+
+    @Benchmark
+    public JsonObject extractClaims() {
+        return jwtService.extractClaims(bearerToken);
+    }
+
+    /**
+     * What authenticateToken did per request before verify(): four payload parses.
+     * Compare against {@link #verify()} with {@code -prof gc} for allocations per request.
+     */
+    @Benchmark
+    public void authenticateLegacy(Blackhole blackhole) {
+        blackhole.consume(uncachedJwtService.validateToken(bearerToken));
+        blackhole.consume(uncachedJwtService.getUserIdFromToken(bearerToken));
+        blackhole.consume(uncachedJwtService.getUsernameFromToken(bearerToken));
+    }
+
+    @Benchmark
+    public JwtPrincipal verify() {
+        return uncachedJwtService.verify(bearerToken);
+    }
+
+    @Benchmark
+    public JwtPrincipal verifyCached() {
+        return jwtService.verify(bearerToken);
+    }
+}
@@ -0,0 +1,91 @@
+package com.gameserver.api;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the full createRouter() pipeline (CORS, body handling, auth, DB, encoding)
+ * through a loopback HTTP connection inside the benchmark JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouterPipelineBenchmark {
+
+    private static final int PORT = 8099;
+
+    private Vertx vertx;
+    private HttpClient client;
+    private Buffer loginBody;
+    private String authorization;
+
+    @Setup
+    public void setUp() throws Exception {
+        vertx = Vertx.vertx();
+
+        ApiServerApplication app = new ApiServerApplication();
+        app.setDatabaseService(new DatabaseService(vertx, "bench_router_" + System.nanoTime()));
+        // Every invocation logs in as the same user; rate limited, nearly all would get 429
+        vertx.deployVerticle(app, new DeploymentOptions()
+                .setConfig(new JsonObject()
+                    .put("http.port", PORT)
+                    .put("login.rateLimit.enabled", false)))
+            .toCompletionStage().toCompletableFuture().get();
+
+        client = vertx.createHttpClient(new HttpClientOptions()
+            .setDefaultHost("localhost")
+            .setDefaultPort(PORT)
+            .setKeepAlive(true));
+        loginBody = new JsonObject()
+            .put("username", "player1")
+            .put("password", "password123")
+            .toBuffer();
+        authorization = "Bearer " + new JsonObject(login().toString()).getString("accessToken");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        vertx.close().toCompletionStage().toCompletableFuture().get();
+    }
+
+    @Benchmark
+    public Buffer login() throws Exception {
+        return client.request(new RequestOptions().setMethod(HttpMethod.POST).setURI("/api/login"))
+            .compose(request -> request.putHeader("content-type", "application/json").send(loginBody))
+            .compose(response -> response.statusCode() == 200
+                ? response.body()
+                : Future.failedFuture("Login failed with status " + response.statusCode()))
+            .toCompletionStage().toCompletableFuture().get();
+    }
+
+    @Benchmark
+    public Buffer getInventory() throws Exception {
+        return client.request(new RequestOptions().setMethod(HttpMethod.GET).setURI("/api/inventory"))
+            .compose(request -> request.putHeader("Authorization", authorization).send())
+            .compose(response -> response.body())
+            .toCompletionStage().toCompletableFuture().get();
+    }
+}
@@ -0,0 +1,109 @@
+package com.gameserver.api;
+
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Request and event-loop metrics shared by all verticle instances, rendered together with
+ * the services' own counters by {@link #scrape}. Recording a request only increments
+ * preallocated histogram and status counters. Timing it costs one end handler per request,
+ * since Vert.x does not pass the request to a shared one.
+ */
+public class ApiMetrics {
+
+    public static final long DEFAULT_EVENT_LOOP_LAG_INTERVAL_MS = 100;
+
+    private static final int MAX_STATUS = 600;
+
+    private static final class RouteMetrics {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLongArray statuses = new AtomicLongArray(MAX_STATUS);
+
+        void record(long nanos, int status) {
+            latency.record(nanos);
+            statuses.incrementAndGet(status >= 0 && status < MAX_STATUS ? status : 0);
+        }
+    }
+
+    private final Map<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+    private final LatencyHistogram eventLoopLag = new LatencyHistogram();
+
+    /**
+     * Returns a handler that times every request on {@code route} until its response ends
+     * and counts the status code. Register it before any other handler of the route.
+     */
+    public Handler<RoutingContext> timer(String route) {
+        RouteMetrics metrics = routes.computeIfAbsent(route, r -> new RouteMetrics());
+        return context -> {
+            long start = System.nanoTime();
+            context.addEndHandler(ar -> metrics.record(System.nanoTime() - start, context.response().getStatusCode()));
+            context.next();
+        };
+    }
+
+    void recordEventLoopLag(long nanos) {
+        eventLoopLag.record(nanos);
+    }
+
+    public String scrape(DatabaseService databaseService, JwtService jwtService, LoginRateLimiter loginRateLimiter,
+                         InventoryPush inventoryPush) {
+        PrometheusTextWriter writer = new PrometheusTextWriter();
+
+        writer.family("gameserver_http_request_duration_seconds", "histogram", "Time from routing a request to the end of its response");
+        routes.forEach((route, metrics) -> writer.histogram("gameserver_http_request_duration_seconds",
+            PrometheusTextWriter.label("route", route), metrics.latency.snapshot()));
+
+        writer.family("gameserver_http_request_duration_quantile_seconds", "gauge", "Request latency percentiles since startup, within 12.5%");
+        routes.forEach((route, metrics) -> {
+            LatencyHistogram.Snapshot snapshot = metrics.latency.snapshot();
+            for (double quantile : new double[] {0.5, 0.9, 0.99, 0.999}) {
+                writer.sample("gameserver_http_request_duration_quantile_seconds",
+                    PrometheusTextWriter.label("route", route) + "," + PrometheusTextWriter.label("quantile", Double.toString(quantile)),
+                    snapshot.percentileMicros(quantile * 100) / 1e6);
+            }
+        });
+
+        writer.family("gameserver_http_responses_total", "counter", "Responses by route and status code");
+        routes.forEach((route, metrics) -> {
+            for (int status = 0; status < MAX_STATUS; status++) {
+                long count = metrics.statuses.get(status);
+                if (count > 0) {
+                    writer.sample("gameserver_http_responses_total",
+                        PrometheusTextWriter.label("route", route) + "," + PrometheusTextWriter.label("status", Integer.toString(status)),
+                        count);
+                }
+            }
+        });
+
+        writer.family("gameserver_event_loop_lag_seconds", "histogram", "Delay of periodic event-loop timers beyond their schedule")
+            .histogram("gameserver_event_loop_lag_seconds", null, eventLoopLag.snapshot());
+
+        writer.stats("gameserver_db_pool", "Database pool", databaseService.getPoolStats(), "rejected", "streamsRejected")
+            .stats("gameserver_inventory_cache", "Inventory cache", databaseService.getInventoryCacheStats(),
+                "hits", "misses", "evictions", "invalidations")
+            .stats("gameserver_inventory_loads", "Inventory loads", databaseService.getInventoryLoadStats(),
+                "loads", "coalesced")
+            .stats("gameserver_db_lookup_users", "Batched user lookups", databaseService.getUserLookupStats(),
+                "lookups", "batches", "keys")
+            .stats("gameserver_db_lookup_inventories", "Batched inventory lookups",
+                databaseService.getInventoryLookupStats(), "lookups", "batches", "keys")
+            .stats("gameserver_inventory_writes", "Inventory write batcher", databaseService.getInventoryWriteStats(),
+                "batches", "committed", "failed", "rejected")
+            .stats("gameserver_inventory_push", "Inventory change WebSockets", inventoryPush.getStats(),
+                "delivered", "dropped", "resyncs")
+            .stats("gameserver_password_workers", "Password hashing pool", databaseService.getPasswordWorkerStats(),
+                "completed", "rejected")
+            .stats("gameserver_jwt", "JWT verification", jwtService.getVerifyStats(), "verified", "failed")
+            .stats("gameserver_jwt_cache", "Verified-token cache", jwtService.getTokenCacheStats(), "hits", "misses", "evictions")
+            .stats("gameserver_login_rate_limit_username", "Login rate limit by username",
+                loginRateLimiter.getStats().getJsonObject("username"), "allowed", "rejected", "evictions")
+            .stats("gameserver_login_rate_limit_address", "Login rate limit by address",
+                loginRateLimiter.getStats().getJsonObject("address"), "allowed", "rejected", "evictions");
+
+        return writer.toString();
+    }
+}
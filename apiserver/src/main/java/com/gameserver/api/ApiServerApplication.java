@@ -1,93 +1,291 @@
 package com.gameserver.api;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.PfxOptions;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.BodyHandler;
 import io.vertx.ext.web.handler.CorsHandler;
-import io.vertx.ext.web.handler.StaticHandler;
+import io.vertx.ext.web.validation.BadRequestException;
+import io.vertx.ext.web.validation.BodyProcessorException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 public class ApiServerApplication extends AbstractVerticle {
 
+    public static final int DEFAULT_HTTP_PORT = 8080;
+    public static final int DEFAULT_INVENTORY_PAGE_LIMIT = 100;
+    public static final int DEFAULT_INVENTORY_PAGE_MAX_LIMIT = 500;
+    public static final int DEFAULT_INVENTORY_STREAM_CHUNK_SIZE = 256;
+    public static final long DEFAULT_INVENTORY_STREAM_IDLE_TIMEOUT_MS = 30_000;
+    public static final int DEFAULT_INVENTORY_BATCH_MAX_USERS = 100;
+    public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+    public static final int DEFAULT_COMPRESSION_MIN_SIZE = 1024;
+    public static final long DEFAULT_STATIC_MAX_AGE_SECONDS = 86_400;
+    public static final long DEFAULT_MAX_BODY_SIZE = 65_536;
+
+    private static final String TESTCLIENT_PATH = "/testclient";
+
+    private static final JsonArray DEFAULT_ADMIN_USERNAMES = new JsonArray().add("admin");
+
+    private static final List<String> METERED_ROUTES = List.of(
+        "/api/login", "/api/inventory", "/api/inventory/batch",
+        "/api/inventory/grant", "/api/inventory/consume", "/api/inventory/update");
+
     private DatabaseService databaseService;
     private JwtService jwtService;
+    private LoginRateLimiter loginRateLimiter;
+    private InventoryPush inventoryPush;
+    private ApiMetrics apiMetrics;
+    private ServerTimings serverTimings;
+    private StaticBundle staticBundle;
+    private Set<String> adminUsernames;
+    private int inventoryPageLimit;
+    private int inventoryPageMaxLimit;
+    private int inventoryStreamChunkSize;
+    private long inventoryStreamIdleTimeoutMs;
+    private int inventoryBatchMaxUsers;
+    private int compressionMinSize;
+    private long maxBodySize;
+    // Closes the services this instance is responsible for, when it is undeployed
+    private Supplier<Future<Void>> closeSharedServices;
 
     @Override
     public void start(Promise<Void> startPromise) throws Exception {
         if (databaseService == null) {
-            databaseService = new DatabaseService(vertx);
+            databaseService = new DatabaseService(vertx, config().getString("db.name", "gameserver"), config());
+            if (closeSharedServices == null) {
+                closeSharedServices = databaseService::close;
+            }
         }
         if (jwtService == null) {
-            jwtService = new JwtService(vertx);
+            jwtService = new JwtService(vertx, config());
+        }
+        if (loginRateLimiter == null) {
+            loginRateLimiter = new LoginRateLimiter(config());
+        }
+        if (inventoryPush == null) {
+            inventoryPush = new InventoryPush(config());
         }
+        if (apiMetrics == null) {
+            apiMetrics = new ApiMetrics();
+        }
+        if (serverTimings == null) {
+            serverTimings = new ServerTimings(config());
+        }
+        adminUsernames = new HashSet<>(config().getJsonArray("admin.usernames", DEFAULT_ADMIN_USERNAMES).getList());
+        inventoryPageLimit = config().getInteger("inventory.page.defaultLimit", DEFAULT_INVENTORY_PAGE_LIMIT);
+        inventoryPageMaxLimit = config().getInteger("inventory.page.maxLimit", DEFAULT_INVENTORY_PAGE_MAX_LIMIT);
+        inventoryStreamChunkSize = config().getInteger("inventory.stream.chunkSize", DEFAULT_INVENTORY_STREAM_CHUNK_SIZE);
+        inventoryStreamIdleTimeoutMs = config().getLong("inventory.stream.idleTimeoutMs", DEFAULT_INVENTORY_STREAM_IDLE_TIMEOUT_MS);
+        inventoryBatchMaxUsers = config().getInteger("inventory.batch.maxUsers", DEFAULT_INVENTORY_BATCH_MAX_USERS);
+        compressionMinSize = config().getInteger("http.compression.minSize", DEFAULT_COMPRESSION_MIN_SIZE);
+        maxBodySize = config().getLong("http.maxBodySize", DEFAULT_MAX_BODY_SIZE);
         
+        startEventLoopLagProbe(config().getLong("metrics.eventLoopLag.intervalMs", ApiMetrics.DEFAULT_EVENT_LOOP_LAG_INTERVAL_MS));
+        
+        // init() is shared by every instance deployed with the same DatabaseService
+        Future<StaticBundle> testClient = staticBundle != null
+            ? Future.succeededFuture(staticBundle)
+            : loadTestClient(vertx, config());
         databaseService.init()
-            .onSuccess(v -> {
-                System.out.println("Database initialized successfully");
-                startPromise.complete();
+            .compose(v -> testClient)
+            .compose(bundle -> {
+                staticBundle = bundle;
+                return startHttpServer();
             })
+            .onSuccess(httpServer -> startPromise.complete())
             .onFailure(startPromise::fail);
     }
 
+    @Override
+    public void stop(Promise<Void> stopPromise) {
+        // Queued inventory writes are committed before the database is closed
+        if (closeSharedServices != null) {
+            closeSharedServices.get().onComplete(stopPromise);
+        } else {
+            stopPromise.complete();
+        }
+    }
+
+    // Timers are cancelled when the verticle is undeployed
+    private void startEventLoopLagProbe(long intervalMs) {
+        long intervalNanos = intervalMs * 1_000_000L;
+        long[] expected = {System.nanoTime() + intervalNanos};
+        vertx.setPeriodic(intervalMs, id -> {
+            long now = System.nanoTime();
+            apiMetrics.recordEventLoopLag(Math.max(0, now - expected[0]));
+            expected[0] = now + intervalNanos;
+        });
+    }
+
+    private Future<HttpServer> startHttpServer() {
+        int port = config().getInteger("http.port", DEFAULT_HTTP_PORT);
+
+        // Each instance binds the same port; Vert.x balances connections across their event loops
+        return vertx.createHttpServer(httpServerOptions(config()))
+            .requestHandler(createRouter())
+            .listen(port);
+    }
+
+    /**
+     * HTTP/1.1 with optional gzip/deflate. Plaintext servers also accept h2c (upgrade or
+     * prior knowledge); with a key store configured, TLS negotiates h2 or http/1.1 via ALPN.
+     */
+    static HttpServerOptions httpServerOptions(JsonObject config) {
+        HttpServerOptions options = new HttpServerOptions()
+            .setCompressionSupported(config.getBoolean("http.compression.enabled", true))
+            .setCompressionLevel(config.getInteger("http.compression.level", DEFAULT_COMPRESSION_LEVEL));
+
+        String keyStorePath = config.getString("http.tls.keyStorePath");
+        if (keyStorePath != null) {
+            options.setSsl(true)
+                .setUseAlpn(true)
+                .setAlpnVersions(List.of(HttpVersion.HTTP_2, HttpVersion.HTTP_1_1))
+                .setKeyCertOptions(new PfxOptions()
+                    .setPath(keyStorePath)
+                    .setPassword(config.getString("http.tls.keyStorePassword", "")));
+        }
+        return options;
+    }
+
+    // Compressing a small body costs more time than it saves bytes; chunked responses are
+    // always compressed since their size is not known up front
+    private void skipCompressionBelowThreshold(RoutingContext context) {
+        context.addHeadersEndHandler(v -> {
+            HttpServerResponse response = context.response();
+            String contentLength = response.headers().get(HttpHeaders.CONTENT_LENGTH);
+            if (contentLength != null && !response.headers().contains(HttpHeaders.CONTENT_ENCODING)
+                && Long.parseLong(contentLength) < compressionMinSize) {
+                response.putHeader(HttpHeaders.CONTENT_ENCODING, HttpHeaders.IDENTITY);
+            }
+        });
+        context.next();
+    }
+
     protected Router createRouter() {
         Router router = Router.router(vertx);
 
+        if (config().getBoolean("http.compression.enabled", true) && compressionMinSize > 0) {
+            router.route().handler(this::skipCompressionBelowThreshold);
+        }
+        for (String route : METERED_ROUTES) {
+            router.route(route).handler(apiMetrics.timer(route));
+        }
+        router.route("/api/*").handler(serverTimings::start);
         router.route().handler(CorsHandler.create().addRelativeOrigin(".*"));
-        router.route().handler(BodyHandler.create());
 
-        // Serve testclient static files
-        router.route("/testclient/*").handler(StaticHandler.create("webroot/testclient").setIndexPage("index.html"));
+        // Only routes that take a body buffer one; a declared Content-Length above the limit
+        // is refused before any of the body is read
+        BodyHandler bodyHandler = BodyHandler.create(false)
+            .setBodyLimit(maxBodySize)
+            .setPreallocateBodyBuffer(true);
+        RequestValidators validators = new RequestValidators();
+
+        // Serve testclient static files from memory
+        router.route(TESTCLIENT_PATH + "/*").handler(this::handleTestClient);
 
-        router.post("/api/login").handler(this::handleLogin);
+        router.get("/metrics").handler(this::handleMetrics);
+        router.get("/admin/timings").handler(this::authenticateToken).handler(this::requireAdmin)
+            .handler(this::handleGetTimings);
+        // Vert.x only accepts a body handler first on a route, so these run on routes of their own
+        router.post("/api/login").handler(this::checkLoginAddress);
+        router.post("/api/inventory/*").handler(this::authenticateToken);
+        // Read or change other players' inventories
+        router.post("/api/inventory/batch").handler(this::requireAdmin);
+        router.post("/api/inventory/grant").handler(this::requireAdmin);
+        router.post("/api/inventory/update").handler(this::requireAdmin);
+
+        router.post("/api/login").handler(bodyHandler)
+            .handler(validators.login).handler(this::handleLogin)
+            .failureHandler(context -> handleInvalidBody(context, "Username and password are required"));
         router.get("/api/inventory").handler(this::authenticateToken).handler(this::handleGetInventory);
+        router.get("/api/inventory/updates").handler(this::authenticateUpgrade)
+            .handler(context -> inventoryPush.subscribe(context, databaseService, context.get("principal")));
+        router.post("/api/inventory/batch").handler(bodyHandler)
+            .handler(validators.inventoryBatch).handler(this::handleGetInventoryBatch)
+            .failureHandler(context -> handleInvalidBody(context, "userIds must be a non-empty array of integers"));
+        router.post("/api/inventory/grant").handler(bodyHandler)
+            .handler(validators.grant)
+            .handler(context -> handleInventoryMutation(context, InventoryMutation.Kind.GRANT))
+            .failureHandler(context -> handleInvalidBody(context, mutationUsage(InventoryMutation.Kind.GRANT)));
+        router.post("/api/inventory/consume").handler(bodyHandler)
+            .handler(validators.consume)
+            .handler(context -> handleInventoryMutation(context, InventoryMutation.Kind.CONSUME))
+            .failureHandler(context -> handleInvalidBody(context, mutationUsage(InventoryMutation.Kind.CONSUME)));
+        router.post("/api/inventory/update").handler(bodyHandler)
+            .handler(validators.update)
+            .handler(context -> handleInventoryMutation(context, InventoryMutation.Kind.UPDATE))
+            .failureHandler(context -> handleInvalidBody(context, mutationUsage(InventoryMutation.Kind.UPDATE)));
 
         router.route().failureHandler(this::handleFailure);
 
         return router;
     }
 
+    private void checkLoginAddress(RoutingContext context) {
+        long retryAfter = loginRateLimiter.checkAddress(context.request().remoteAddress().host());
+        if (retryAfter > 0) {
+            respondTooManyRequests(context, retryAfter);
+            return;
+        }
+        context.next();
+    }
+
     private void handleLogin(RoutingContext context) {
-        JsonObject requestBody = context.getBodyAsJson();
+        JsonObject requestBody = RequestValidators.body(context);
         
         if (requestBody == null) {
-            context.response()
-                .setStatusCode(400)
-                .putHeader("content-type", "application/json")
-                .end(new JsonObject().put("error", "Request body is required").encode());
+            respondBodyRequired(context);
             return;
         }
         
         String username = requestBody.getString("username");
         String password = requestBody.getString("password");
         
-        if (username == null || password == null) {
-            context.response()
-                .setStatusCode(400)
-                .putHeader("content-type", "application/json")
-                .end(new JsonObject().put("error", "Username and password are required").encode());
+        long retryAfter = loginRateLimiter.checkUsername(username);
+        if (retryAfter > 0) {
+            respondTooManyRequests(context, retryAfter);
             return;
         }
         
+        long credentialsStart = System.nanoTime();
         databaseService.authenticateUser(username, password)
+            .onComplete(ar -> ServerTimings.record(context, "credentials", credentialsStart))
             .onSuccess(user -> {
                 if (user != null) {
                     int userId = user.getInteger("ID");
                     String userUsername = user.getString("USERNAME");
                     String accessToken = jwtService.generateToken(userId, userUsername);
                     
-                    JsonObject response = new JsonObject()
-                        .put("success", true)
-                        .put("userId", userId)
-                        .put("username", userUsername)
-                        .put("accessToken", accessToken);
-                    
+                    ResponseFormat format = ResponseFormat.negotiate(context);
                     context.response()
                         .setStatusCode(200)
-                        .putHeader("content-type", "application/json")
-                        .end(response.encode());
+                        .putHeader("content-type", format.contentType())
+                        .putHeader(HttpHeaders.VARY, "Accept")
+                        .end(format.login(userId, userUsername, accessToken));
                 } else {
                     context.response()
                         .setStatusCode(401)
@@ -96,6 +294,10 @@ public class ApiServerApplication extends AbstractVerticle {
                 }
             })
             .onFailure(error -> {
+                if (error instanceof ServiceBusyException) {
+                    respondServiceBusy(context);
+                    return;
+                }
                 context.response()
                     .setStatusCode(500)
                     .putHeader("content-type", "application/json")
@@ -103,9 +305,74 @@ public class ApiServerApplication extends AbstractVerticle {
             });
     }
 
+    private static Future<StaticBundle> loadTestClient(Vertx vertx, JsonObject config) {
+        return StaticBundle.load(vertx, "webroot/testclient", "index.html",
+            config.getLong("static.maxAgeSeconds", DEFAULT_STATIC_MAX_AGE_SECONDS),
+            config.getBoolean("http.compression.enabled", true));
+    }
+
+    private void handleTestClient(RoutingContext context) {
+        String path = context.normalizedPath();
+        if (path.equals(TESTCLIENT_PATH)) {
+            // Relative links in the index page need the trailing slash
+            context.response()
+                .setStatusCode(301)
+                .putHeader(HttpHeaders.LOCATION, TESTCLIENT_PATH + "/")
+                .end();
+            return;
+        }
+        staticBundle.serve(context, path.substring(TESTCLIENT_PATH.length() + 1));
+    }
+
+    private void handleMetrics(RoutingContext context) {
+        context.response()
+            .putHeader("content-type", PrometheusTextWriter.CONTENT_TYPE)
+            .end(apiMetrics.scrape(databaseService, jwtService, loginRateLimiter, inventoryPush));
+    }
+
+    private void requireAdmin(RoutingContext context) {
+        if (!adminUsernames.contains(context.<String>get("username"))) {
+            context.response()
+                .setStatusCode(403)
+                .putHeader("content-type", "application/json")
+                .end(new JsonObject().put("error", "Admin access required").encode());
+            return;
+        }
+        context.next();
+    }
+
+    private void handleGetTimings(RoutingContext context) {
+        int limit;
+        try {
+            String limitParam = context.request().getParam("limit");
+            limit = limitParam != null ? Integer.parseInt(limitParam) : Integer.MAX_VALUE;
+        } catch (NumberFormatException e) {
+            limit = -1;
+        }
+        if (limit < 1) {
+            context.response()
+                .setStatusCode(400)
+                .putHeader("content-type", "application/json")
+                .end(new JsonObject().put("error", "limit must be a positive integer").encode());
+            return;
+        }
+        context.response()
+            .setStatusCode(200)
+            .putHeader("content-type", "application/json")
+            .end(new JsonObject().put("timings", serverTimings.recent(limit)).encode());
+    }
+
     private void authenticateToken(RoutingContext context) {
+        authenticate(context, context.request().getHeader("Authorization"));
+    }
+
+    // Browsers cannot set headers on a WebSocket handshake, so the token may be a query parameter
+    private void authenticateUpgrade(RoutingContext context) {
         String authHeader = context.request().getHeader("Authorization");
-        
+        authenticate(context, authHeader != null ? authHeader : context.request().getParam("access_token"));
+    }
+
+    private void authenticate(RoutingContext context, String authHeader) {
         if (authHeader == null || authHeader.trim().isEmpty()) {
             context.response()
                 .setStatusCode(401)
@@ -114,19 +381,23 @@ public class ApiServerApplication extends AbstractVerticle {
             return;
         }
         
-        jwtService.validateToken(authHeader)
-            .onSuccess(user -> {
-                // Store user info in context for later use
-                context.put("userId", jwtService.getUserIdFromToken(authHeader));
-                context.put("username", jwtService.getUsernameFromToken(authHeader));
-                context.next();
-            })
-            .onFailure(error -> {
-                context.response()
-                    .setStatusCode(401)
-                    .putHeader("content-type", "application/json")
-                    .end(new JsonObject().put("error", "Invalid or expired token").encode());
-            });
+        long authStart = System.nanoTime();
+        try {
+            JwtPrincipal principal = jwtService.verify(authHeader);
+            ServerTimings.record(context, "auth", authStart);
+            // Store user info in context for later use
+            context.put("principal", principal);
+            context.put("userId", principal.userId());
+            context.put("username", principal.username());
+        } catch (JwtVerificationException e) {
+            ServerTimings.record(context, "auth", authStart);
+            context.response()
+                .setStatusCode(401)
+                .putHeader("content-type", "application/json")
+                .end(new JsonObject().put("error", "Invalid or expired token").encode());
+            return;
+        }
+        context.next();
     }
 
     private void handleGetInventory(RoutingContext context) {
@@ -140,25 +411,347 @@ public class ApiServerApplication extends AbstractVerticle {
             return;
         }
         
-        databaseService.getUserInventory(userId)
-            .onSuccess(inventory -> {
-                JsonObject response = new JsonObject()
-                    .put("userId", userId)
-                    .put("inventory", inventory);
-                
+        // Streamed inventories are always JSON
+        boolean stream = "true".equals(context.request().getParam("stream"));
+        ResponseFormat format = stream ? ResponseFormat.JSON : ResponseFormat.negotiate(context);
+        String etag = inventoryETag(userId, format);
+        context.response()
+            .putHeader(HttpHeaders.ETAG, etag)
+            .putHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache")
+            .putHeader(HttpHeaders.VARY, "Accept");
+        if (etagMatches(context.request().getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            context.response().setStatusCode(304).end();
+            return;
+        }
+        
+        if (stream) {
+            streamInventory(context, userId);
+            return;
+        }
+        if (context.request().getParam("after") != null || context.request().getParam("limit") != null) {
+            handleGetInventoryPage(context, userId, format);
+            return;
+        }
+        
+        long dbStart = System.nanoTime();
+        databaseService.getUserInventoryItems(userId)
+            .onComplete(ar -> ServerTimings.record(context, "db", dbStart))
+            .onSuccess(items -> endPooled(context, format.contentType(), InventoryJsonWriter.estimateSize(items.size()),
+                target -> format.inventory(target, userId, items)))
+            .onFailure(error -> respondInventoryFailure(context, error));
+    }
+
+    // Weak, since compression changes the bytes of the same inventory. Each format is its
+    // own representation, so the media subtype is part of the tag
+    private String inventoryETag(int userId, ResponseFormat format) {
+        String contentType = format.contentType();
+        return "W/\"" + Long.toString(databaseService.getInventoryVersionEpoch(), 36)
+            + "." + databaseService.getInventoryVersion(userId)
+            + "." + contentType.substring(contentType.indexOf('/') + 1) + "\"";
+    }
+
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || (candidate.startsWith("W/") ? candidate.substring(2) : candidate).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void handleGetInventoryPage(RoutingContext context, int userId, ResponseFormat format) {
+        String afterParam = context.request().getParam("after");
+        String limitParam = context.request().getParam("limit");
+        
+        InventoryPage.Key after;
+        int limit;
+        try {
+            after = afterParam != null ? InventoryPage.Key.parse(afterParam) : InventoryPage.Key.START;
+            limit = limitParam != null ? Integer.parseInt(limitParam) : inventoryPageLimit;
+            if (limit < 1) {
+                throw new IllegalArgumentException("limit must be positive");
+            }
+        } catch (IllegalArgumentException e) {
+            context.response()
+                .setStatusCode(400)
+                .putHeader("content-type", "application/json")
+                .end(new JsonObject().put("error", "Invalid after or limit parameter").encode());
+            return;
+        }
+        long dbStart = System.nanoTime();
+        databaseService.getUserInventoryPage(userId, after, Math.min(limit, inventoryPageMaxLimit))
+            .onComplete(ar -> ServerTimings.record(context, "db", dbStart))
+            .onSuccess(page -> endPooled(context, format.contentType(), InventoryJsonWriter.estimateSize(page.items().size()),
+                target -> format.page(target, userId, page)))
+            .onFailure(error -> respondInventoryFailure(context, error));
+    }
+
+    /**
+     * Ends the response with a 200 body encoded into pooled memory. Vert.x only releases
+     * buffers it allocated itself, so this one is released once the write completes or fails.
+     */
+    private static void endPooled(RoutingContext context, String contentType, int sizeHint,
+                                  UnaryOperator<Buffer> encoder) {
+        long encodeStart = System.nanoTime();
+        ByteBuf pooled = PooledByteBufAllocator.DEFAULT.buffer(sizeHint);
+        Buffer body;
+        try {
+            body = encoder.apply(Buffer.buffer(pooled));
+        } catch (RuntimeException e) {
+            pooled.release();
+            throw e;
+        }
+        ServerTimings.record(context, "encode", encodeStart);
+        context.response()
+            .setStatusCode(200)
+            .putHeader("content-type", contentType)
+            .end(body)
+            .onComplete(ar -> pooled.release());
+    }
+
+    private void streamInventory(RoutingContext context, int userId) {
+        long dbStart = System.nanoTime();
+        databaseService.openInventoryCursor(userId, inventoryStreamChunkSize)
+            .onComplete(ar -> ServerTimings.record(context, "db", dbStart))
+            .onSuccess(cursor -> {
+                HttpServerResponse response = context.response()
+                    .setStatusCode(200)
+                    .setChunked(true)
+                    .putHeader("content-type", "application/json");
+                // Holds the id of the pending idle timer
+                long[] idleTimer = {-1};
+                // Release the connection if the client goes away mid-stream
+                response.closeHandler(v -> {
+                    vertx.cancelTimer(idleTimer[0]);
+                    cursor.close();
+                });
+                response.write(InventoryJsonWriter.encodeStreamStart(userId));
+                writeInventoryChunks(context, cursor, idleTimer, true);
+            })
+            .onFailure(error -> respondInventoryFailure(context, error));
+    }
+
+    private void writeInventoryChunks(RoutingContext context, InventoryCursor cursor, long[] idleTimer, boolean first) {
+        HttpServerResponse response = context.response();
+        if (response.closed()) {
+            cursor.close();
+            return;
+        }
+        // A client that stops reading would otherwise hold the cursor's connection forever
+        vertx.cancelTimer(idleTimer[0]);
+        idleTimer[0] = vertx.setTimer(inventoryStreamIdleTimeoutMs, id -> {
+            cursor.close();
+            response.reset();
+        });
+        long dbStart = System.nanoTime();
+        cursor.next(inventoryStreamChunkSize)
+            .onComplete(ar -> ServerTimings.record(context, "db", dbStart))
+            .onSuccess(items -> {
+                // Timed out or closed while this chunk was read; the cursor is already closing
+                if (response.closed()) {
+                    return;
+                }
+                if (items.isEmpty()) {
+                    vertx.cancelTimer(idleTimer[0]);
+                    cursor.close();
+                    response.end(InventoryJsonWriter.encodeStreamEnd());
+                    return;
+                }
+                long encodeStart = System.nanoTime();
+                Buffer chunk = InventoryJsonWriter.encodeStreamChunk(items, first);
+                ServerTimings.record(context, "encode", encodeStart);
+                response.write(chunk);
+                // Read the next chunk only once the client has taken this one, so at most
+                // one chunk per stream is held in memory
+                if (response.writeQueueFull()) {
+                    response.drainHandler(v -> {
+                        response.drainHandler(null);
+                        writeInventoryChunks(context, cursor, idleTimer, false);
+                    });
+                } else {
+                    writeInventoryChunks(context, cursor, idleTimer, false);
+                }
+            })
+            .onFailure(error -> {
+                // Headers are already sent; cut the connection so the client sees a truncated body
+                vertx.cancelTimer(idleTimer[0]);
+                cursor.close();
+                response.reset();
+            });
+    }
+
+    private void handleGetInventoryBatch(RoutingContext context) {
+        JsonObject requestBody = RequestValidators.body(context);
+        
+        if (requestBody == null) {
+            respondBodyRequired(context);
+            return;
+        }
+        
+        JsonArray userIdsParam = requestBody.getJsonArray("userIds");
+        List<Integer> userIds = new ArrayList<>(userIdsParam.size());
+        for (int i = 0; i < userIdsParam.size(); i++) {
+            userIds.add(userIdsParam.getInteger(i));
+        }
+        if (userIds.size() > inventoryBatchMaxUsers) {
+            context.response()
+                .setStatusCode(400)
+                .putHeader("content-type", "application/json")
+                .end(new JsonObject().put("error", "At most " + inventoryBatchMaxUsers + " userIds per request").encode());
+            return;
+        }
+        
+        long dbStart = System.nanoTime();
+        databaseService.getUserInventories(userIds)
+            .onComplete(ar -> ServerTimings.record(context, "db", dbStart))
+            .onSuccess(inventories -> {
+                int itemCount = inventories.values().stream().mapToInt(List::size).sum();
+                endPooled(context, "application/json", InventoryJsonWriter.estimateSize(itemCount),
+                    target -> InventoryJsonWriter.writeBatch(target, inventories));
+            })
+            .onFailure(error -> respondInventoryFailure(context, error));
+    }
+
+    private void handleInventoryMutation(RoutingContext context, InventoryMutation.Kind kind) {
+        JsonObject requestBody = RequestValidators.body(context);
+        
+        if (requestBody == null) {
+            respondBodyRequired(context);
+            return;
+        }
+        
+        // Players consume their own items; grants and updates name the user they apply to
+        int userId = kind == InventoryMutation.Kind.CONSUME ? context.get("userId") : requestBody.getInteger("userId");
+        InventoryMutation mutation = toMutation(kind, userId, requestBody);
+        if (mutation == null) {
+            context.response()
+                .setStatusCode(400)
+                .putHeader("content-type", "application/json")
+                .end(new JsonObject().put("error", mutationUsage(kind)).encode());
+            return;
+        }
+        
+        long dbStart = System.nanoTime();
+        databaseService.mutateInventory(mutation)
+            .onComplete(ar -> ServerTimings.record(context, "db", dbStart))
+            .onSuccess(v -> {
                 context.response()
                     .setStatusCode(200)
                     .putHeader("content-type", "application/json")
-                    .end(response.encode());
+                    .end(new JsonObject().put("success", true).encode());
             })
             .onFailure(error -> {
+                if (error instanceof InventoryMutationException mutationError) {
+                    context.response()
+                        .setStatusCode(mutationError.statusCode())
+                        .putHeader("content-type", "application/json")
+                        .end(new JsonObject().put("error", mutationError.getMessage()).encode());
+                    return;
+                }
+                if (error instanceof ServiceBusyException) {
+                    respondServiceBusy(context);
+                    return;
+                }
                 context.response()
                     .setStatusCode(500)
                     .putHeader("content-type", "application/json")
-                    .end(new JsonObject().put("error", "Failed to retrieve inventory").encode());
+                    .end(new JsonObject().put("error", "Failed to update inventory").encode());
             });
     }
 
+    /**
+     * Builds the mutation from a body that passed the route's schema; returns null when an
+     * update names nothing to change.
+     */
+    private static InventoryMutation toMutation(InventoryMutation.Kind kind, int userId, JsonObject body) {
+        String name = body.getString("item_name");
+        String itemType = body.getString("item_type");
+        int count = body.getInteger("quantity", 1);
+        JsonObject properties = body.getJsonObject("properties");
+        String propertiesJson = properties != null ? properties.encode() : null;
+        
+        return switch (kind) {
+            case GRANT -> InventoryMutation.grant(userId, name, itemType, count, propertiesJson);
+            case CONSUME -> InventoryMutation.consume(userId, name, count);
+            case UPDATE -> itemType != null || properties != null
+                ? InventoryMutation.update(userId, name, itemType, propertiesJson)
+                : null;
+        };
+    }
+
+    private static String mutationUsage(InventoryMutation.Kind kind) {
+        return switch (kind) {
+            case GRANT -> "item_name and item_type are required; userId and quantity must be positive integers and properties an object";
+            case CONSUME -> "item_name is required and quantity must be a positive integer";
+            case UPDATE -> "item_name and at least one of item_type or properties (an object) are required; userId must be a positive integer";
+        };
+    }
+
+    private void respondInventoryFailure(RoutingContext context, Throwable error) {
+        if (error instanceof ServiceBusyException) {
+            respondServiceBusy(context);
+            return;
+        }
+        context.response()
+            .setStatusCode(500)
+            .putHeader("content-type", "application/json")
+            .end(new JsonObject().put("error", "Failed to retrieve inventory").encode());
+    }
+
+    private void respondBodyRequired(RoutingContext context) {
+        context.response()
+            .setStatusCode(400)
+            .putHeader("content-type", "application/json")
+            .end(new JsonObject().put("error", "Request body is required").encode());
+    }
+
+    // Answers bodies refused by the route's validator; anything else goes on to handleFailure
+    private void handleInvalidBody(RoutingContext context, String usage) {
+        Throwable failure = context.failure();
+        if (!(failure instanceof BadRequestException)) {
+            context.next();
+            return;
+        }
+        int statusCode = 400;
+        String error = usage;
+        if (failure instanceof BodyProcessorException bodyError) {
+            switch (bodyError.getErrorType()) {
+                case PARSING_ERROR -> error = "Request body is not valid JSON";
+                case MISSING_MATCHING_BODY_PROCESSOR -> {
+                    statusCode = 415;
+                    error = "Request body must be application/json";
+                }
+                default -> {
+                }
+            }
+        }
+        context.response()
+            .setStatusCode(statusCode)
+            .putHeader("content-type", "application/json")
+            .end(new JsonObject().put("error", error).encode());
+    }
+
+    private void respondTooManyRequests(RoutingContext context, long retryAfterSeconds) {
+        context.response()
+            .setStatusCode(429)
+            .putHeader("content-type", "application/json")
+            .putHeader("Retry-After", Long.toString(retryAfterSeconds))
+            .end(new JsonObject().put("error", "Too many login attempts").encode());
+    }
+
+    private void respondServiceBusy(RoutingContext context) {
+        context.response()
+            .setStatusCode(503)
+            .putHeader("content-type", "application/json")
+            .putHeader("Retry-After", "1")
+            .end(new JsonObject().put("error", "Service temporarily unavailable").encode());
+    }
+
     private void handleFailure(RoutingContext context) {
         Throwable failure = context.failure();
         int statusCode = context.statusCode();
@@ -171,8 +764,9 @@ public class ApiServerApplication extends AbstractVerticle {
             statusCode = 500;
         }
         
-        JsonObject errorResponse = new JsonObject()
-            .put("error", failure != null ? failure.getMessage() : "Unknown error");
+        String error = failure != null ? failure.getMessage()
+            : statusCode == 413 ? "Request body is too large" : "Unknown error";
+        JsonObject errorResponse = new JsonObject().put("error", error);
         
         context.response()
             .setStatusCode(statusCode)
@@ -188,28 +782,103 @@ public class ApiServerApplication extends AbstractVerticle {
         this.jwtService = jwtService;
     }
 
-    public static void main(String[] args) {
+    public void setLoginRateLimiter(LoginRateLimiter loginRateLimiter) {
+        this.loginRateLimiter = loginRateLimiter;
+    }
+
+    public void setInventoryPush(InventoryPush inventoryPush) {
+        this.inventoryPush = inventoryPush;
+    }
+
+    public void setApiMetrics(ApiMetrics apiMetrics) {
+        this.apiMetrics = apiMetrics;
+    }
+
+    public void setServerTimings(ServerTimings serverTimings) {
+        this.serverTimings = serverTimings;
+    }
+
+    void setStaticBundle(StaticBundle staticBundle) {
+        this.staticBundle = staticBundle;
+    }
+
+    void setCloseSharedServices(Supplier<Future<Void>> closeSharedServices) {
+        this.closeSharedServices = closeSharedServices;
+    }
+
+    /**
+     * Deploys {@code instances} verticles (default: available cores) that share one
+     * DatabaseService, JwtService, login rate limiter, inventory push channel, metrics
+     * registry, timing buffer and in-memory test client; each instance owns its router and
+     * HTTP server. The DatabaseService is closed when the last instance is undeployed.
+     */
+    public static Future<String> deploy(Vertx vertx, JsonObject config) {
+        return deploy(vertx, config, new DatabaseService(vertx, config.getString("db.name", "gameserver"), config));
+    }
+
+    static Future<String> deploy(Vertx vertx, JsonObject config, DatabaseService databaseService) {
+        int instances = config.getInteger("instances", Runtime.getRuntime().availableProcessors());
+        JwtService jwtService = new JwtService(vertx, config);
+        LoginRateLimiter loginRateLimiter = new LoginRateLimiter(config);
+        InventoryPush inventoryPush = new InventoryPush(config);
+        ApiMetrics apiMetrics = new ApiMetrics();
+        ServerTimings serverTimings = new ServerTimings(config);
+
+        AtomicInteger running = new AtomicInteger(instances);
+        Supplier<Future<Void>> closeOnLastStop = () -> running.decrementAndGet() == 0
+            ? databaseService.close()
+            : Future.succeededFuture();
+
+        DeploymentOptions options = new DeploymentOptions()
+            .setInstances(instances)
+            .setConfig(config);
+
+        // Initialized before any instance starts, so its pool and worker threads do not belong to
+        // (and close with) the context of whichever instance happens to call init() first
+        return databaseService.init()
+            .compose(v -> loadTestClient(vertx, config))
+            .compose(testClient -> vertx.deployVerticle(() -> {
+                ApiServerApplication app = new ApiServerApplication();
+                app.setDatabaseService(databaseService);
+                app.setJwtService(jwtService);
+                app.setLoginRateLimiter(loginRateLimiter);
+                app.setInventoryPush(inventoryPush);
+                app.setApiMetrics(apiMetrics);
+                app.setServerTimings(serverTimings);
+                app.setStaticBundle(testClient);
+                app.setCloseSharedServices(closeOnLastStop);
+                return app;
+            }, options))
+            // Instances that failed to start are never stopped
+            .onFailure(error -> databaseService.close());
+    }
+
+    static JsonObject loadConfig(String[] args) throws Exception {
+        if (args.length > 0) {
+            return new JsonObject(Files.readString(Path.of(args[0])));
+        }
+        return new JsonObject();
+    }
+
+    public static void main(String[] args) throws Exception {
+        JsonObject config = loadConfig(args);
+        int port = config.getInteger("http.port", DEFAULT_HTTP_PORT);
         Vertx vertx = Vertx.vertx();
-        ApiServerApplication app = new ApiServerApplication();
-        
-        vertx.deployVerticle(app)
+        // Undeploys the verticles, which drains queued writes and closes the database
+        Runtime.getRuntime().addShutdownHook(new Thread(() ->
+            vertx.close().toCompletionStage().toCompletableFuture().join()));
+
+        deploy(vertx, config)
             .onSuccess(id -> {
-                vertx.createHttpServer()
-                    .requestHandler(app.createRouter())
-                    .listen(8080)
-                    .onSuccess(server -> {
-                        System.out.println("HTTP server started on port " + server.actualPort());
-                        System.out.println("API available at: http://localhost:" + server.actualPort() + "/api");
-                        System.out.println("Test client available at: http://localhost:" + server.actualPort() + "/testclient/");
-                    })
-                    .onFailure(error -> {
-                        System.err.println("Failed to start HTTP server: " + error.getMessage());
-                        vertx.close();
-                    });
+                System.out.println("Database initialized successfully");
+                System.out.println("HTTP server started on port " + port);
+                System.out.println("API available at: http://localhost:" + port + "/api");
+                System.out.println("Test client available at: http://localhost:" + port + "/testclient/");
+                System.out.println("Metrics available at: http://localhost:" + port + "/metrics");
             })
             .onFailure(error -> {
                 System.err.println("Failed to deploy verticle: " + error.getMessage());
                 vertx.close();
             });
     }
-}
\ No newline at end of file
+}
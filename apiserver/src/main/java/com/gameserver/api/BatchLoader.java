@@ -0,0 +1,122 @@
+package com.gameserver.api;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collects single-key lookups for a short window and runs them as one multi-key query, in
+ * the manner of a DataLoader. Shared by all verticle instances: the first lookup opens a
+ * batch, which is run once {@code windowMs} has passed (0: at the end of the current
+ * event-loop task) or as soon as it holds {@code maxBatchSize} keys. Each caller's future
+ * completes on the caller's own context; keys missing from the loaded map get null.
+ */
+class BatchLoader<K, V> {
+
+    private record Waiter<V>(Context context, Promise<V> promise) {
+    }
+
+    private final Vertx vertx;
+    private final long windowMs;
+    private final int maxBatchSize;
+    private final Function<List<K>, Future<Map<K, V>>> loader;
+
+    // Guarded by this; replaced whenever a batch is taken
+    private Map<K, List<Waiter<V>>> pending = new LinkedHashMap<>();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder keys = new LongAdder();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+
+    BatchLoader(Vertx vertx, long windowMs, int maxBatchSize, Function<List<K>, Future<Map<K, V>>> loader) {
+        this.vertx = vertx;
+        this.windowMs = windowMs;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.loader = loader;
+    }
+
+    Future<V> load(K key) {
+        Context context = vertx.getOrCreateContext();
+        Promise<V> promise = Promise.promise();
+        lookups.increment();
+
+        Map<K, List<Waiter<V>>> batch;
+        boolean opened;
+        boolean full;
+        synchronized (this) {
+            batch = pending;
+            opened = batch.isEmpty();
+            batch.computeIfAbsent(key, k -> new ArrayList<>(1)).add(new Waiter<>(context, promise));
+            full = batch.size() >= maxBatchSize;
+            if (full) {
+                pending = new LinkedHashMap<>();
+            }
+        }
+
+        if (full) {
+            run(batch);
+        } else if (opened) {
+            if (windowMs > 0) {
+                vertx.setTimer(windowMs, id -> runIfPending(batch));
+            } else {
+                context.runOnContext(v -> runIfPending(batch));
+            }
+        }
+        return promise.future();
+    }
+
+    // The timer of a batch that already filled up finds it gone
+    private void runIfPending(Map<K, List<Waiter<V>>> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                return;
+            }
+            pending = new LinkedHashMap<>();
+        }
+        run(batch);
+    }
+
+    private void run(Map<K, List<Waiter<V>>> batch) {
+        int size = batch.size();
+        batches.increment();
+        keys.add(size);
+        largestBatch.accumulateAndGet(size, Math::max);
+
+        Future<Map<K, V>> loaded;
+        try {
+            loaded = loader.apply(new ArrayList<>(batch.keySet()));
+        } catch (RuntimeException e) {
+            loaded = Future.failedFuture(e);
+        }
+        loaded.onComplete(ar -> batch.forEach((key, waiters) -> {
+            AsyncResult<V> result = ar.succeeded() ? Future.succeededFuture(ar.result().get(key)) : Future.failedFuture(ar.cause());
+            for (Waiter<V> waiter : waiters) {
+                if (Vertx.currentContext() == waiter.context()) {
+                    waiter.promise().handle(result);
+                } else {
+                    waiter.context().runOnContext(v -> waiter.promise().handle(result));
+                }
+            }
+        }));
+    }
+
+    JsonObject stats() {
+        return new JsonObject()
+            .put("lookups", lookups.sum())
+            .put("batches", batches.sum())
+            .put("keys", keys.sum())
+            .put("largestBatch", largestBatch.get());
+    }
+}
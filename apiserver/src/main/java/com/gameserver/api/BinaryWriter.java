@@ -0,0 +1,330 @@
+package com.gameserver.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes CBOR (RFC 8949) or MessagePack values straight into a Buffer. Maps and arrays of
+ * known size are written with their size up front; JSON documents are transcoded from
+ * Jackson's streaming parser with {@link #json(byte[])}, without building a tree.
+ */
+abstract class BinaryWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    final Buffer buffer;
+
+    private BinaryWriter(Buffer buffer) {
+        this.buffer = buffer;
+    }
+
+    static BinaryWriter cbor(Buffer buffer) {
+        return new Cbor(buffer);
+    }
+
+    static BinaryWriter messagePack(Buffer buffer) {
+        return new MessagePack(buffer);
+    }
+
+    abstract BinaryWriter mapHeader(int size);
+
+    abstract BinaryWriter arrayHeader(int size);
+
+    abstract BinaryWriter integer(long value);
+
+    abstract BinaryWriter float64(double value);
+
+    abstract BinaryWriter bool(boolean value);
+
+    abstract BinaryWriter nil();
+
+    abstract BinaryWriter utf8(byte[] value, int offset, int length);
+
+    BinaryWriter utf8(byte[] value) {
+        return utf8(value, 0, value.length);
+    }
+
+    BinaryWriter string(String value) {
+        return value != null ? utf8(value.getBytes(StandardCharsets.UTF_8)) : nil();
+    }
+
+    // Containers whose size is only known once they are written; the mark is passed back to close
+    abstract int openMap();
+
+    abstract int openArray();
+
+    abstract void closeContainer(int mark, int size);
+
+    /**
+     * Writes one JSON document (UTF-8) as the equivalent value. Integers that do not fit in a
+     * long are written as floats. Malformed JSON, or anything after the document, throws
+     * {@link IllegalArgumentException}; the output written so far is then incomplete.
+     */
+    BinaryWriter json(byte[] json) {
+        // Open containers, innermost last: their marks, entry counts and whether each is an array
+        int[] marks = new int[8];
+        int[] sizes = new int[8];
+        boolean[] arrays = new boolean[8];
+        int depth = 0;
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            do {
+                JsonToken token = parser.nextToken();
+                if (token == null) {
+                    throw new IllegalArgumentException("Incomplete JSON document");
+                }
+                if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                    depth--;
+                    closeContainer(marks[depth], sizes[depth]);
+                    continue;
+                }
+                // A map's size counts its keys, an array's its values
+                if (depth > 0 && (token == JsonToken.FIELD_NAME || arrays[depth - 1])) {
+                    sizes[depth - 1]++;
+                }
+                switch (token) {
+                    case START_OBJECT, START_ARRAY -> {
+                        if (depth == marks.length) {
+                            marks = Arrays.copyOf(marks, depth * 2);
+                            sizes = Arrays.copyOf(sizes, depth * 2);
+                            arrays = Arrays.copyOf(arrays, depth * 2);
+                        }
+                        arrays[depth] = token == JsonToken.START_ARRAY;
+                        marks[depth] = arrays[depth] ? openArray() : openMap();
+                        sizes[depth] = 0;
+                        depth++;
+                    }
+                    case FIELD_NAME, VALUE_STRING -> string(parser.getText());
+                    case VALUE_NUMBER_INT -> {
+                        if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+                            float64(parser.getDoubleValue());
+                        } else {
+                            integer(parser.getLongValue());
+                        }
+                    }
+                    case VALUE_NUMBER_FLOAT -> float64(parser.getDoubleValue());
+                    case VALUE_TRUE -> bool(true);
+                    case VALUE_FALSE -> bool(false);
+                    case VALUE_NULL -> nil();
+                    default -> throw new IllegalArgumentException("Unexpected JSON token " + token);
+                }
+            } while (depth > 0);
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("Unexpected JSON after the document");
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON document", e);
+        }
+        return this;
+    }
+
+    private static final class Cbor extends BinaryWriter {
+
+        private static final int UNSIGNED = 0;
+        private static final int NEGATIVE = 1;
+        private static final int TEXT = 3;
+        private static final int ARRAY = 4;
+        private static final int MAP = 5;
+        private static final int INDEFINITE = 31;
+        private static final byte BREAK = (byte) 0xff;
+
+        Cbor(Buffer buffer) {
+            super(buffer);
+        }
+
+        // Initial byte plus the shortest argument encoding that fits
+        private void head(int majorType, long argument) {
+            int major = majorType << 5;
+            if (argument < 24) {
+                buffer.appendByte((byte) (major | argument));
+            } else if (argument < 0x100) {
+                buffer.appendByte((byte) (major | 24)).appendUnsignedByte((short) argument);
+            } else if (argument < 0x10000) {
+                buffer.appendByte((byte) (major | 25)).appendUnsignedShort((int) argument);
+            } else if (argument < 0x100000000L) {
+                buffer.appendByte((byte) (major | 26)).appendUnsignedInt(argument);
+            } else {
+                buffer.appendByte((byte) (major | 27)).appendLong(argument);
+            }
+        }
+
+        @Override
+        BinaryWriter mapHeader(int size) {
+            head(MAP, size);
+            return this;
+        }
+
+        @Override
+        BinaryWriter arrayHeader(int size) {
+            head(ARRAY, size);
+            return this;
+        }
+
+        @Override
+        BinaryWriter integer(long value) {
+            if (value >= 0) {
+                head(UNSIGNED, value);
+            } else {
+                head(NEGATIVE, -1 - value);
+            }
+            return this;
+        }
+
+        @Override
+        BinaryWriter float64(double value) {
+            buffer.appendByte((byte) 0xfb).appendDouble(value);
+            return this;
+        }
+
+        @Override
+        BinaryWriter bool(boolean value) {
+            buffer.appendByte(value ? (byte) 0xf5 : (byte) 0xf4);
+            return this;
+        }
+
+        @Override
+        BinaryWriter nil() {
+            buffer.appendByte((byte) 0xf6);
+            return this;
+        }
+
+        @Override
+        BinaryWriter utf8(byte[] value, int offset, int length) {
+            head(TEXT, length);
+            buffer.appendBytes(value, offset, length);
+            return this;
+        }
+
+        @Override
+        int openMap() {
+            buffer.appendByte((byte) (MAP << 5 | INDEFINITE));
+            return -1;
+        }
+
+        @Override
+        int openArray() {
+            buffer.appendByte((byte) (ARRAY << 5 | INDEFINITE));
+            return -1;
+        }
+
+        @Override
+        void closeContainer(int mark, int size) {
+            buffer.appendByte(BREAK);
+        }
+    }
+
+    private static final class MessagePack extends BinaryWriter {
+
+        MessagePack(Buffer buffer) {
+            super(buffer);
+        }
+
+        @Override
+        BinaryWriter mapHeader(int size) {
+            if (size < 16) {
+                buffer.appendByte((byte) (0x80 | size));
+            } else if (size < 0x10000) {
+                buffer.appendByte((byte) 0xde).appendUnsignedShort(size);
+            } else {
+                buffer.appendByte((byte) 0xdf).appendInt(size);
+            }
+            return this;
+        }
+
+        @Override
+        BinaryWriter arrayHeader(int size) {
+            if (size < 16) {
+                buffer.appendByte((byte) (0x90 | size));
+            } else if (size < 0x10000) {
+                buffer.appendByte((byte) 0xdc).appendUnsignedShort(size);
+            } else {
+                buffer.appendByte((byte) 0xdd).appendInt(size);
+            }
+            return this;
+        }
+
+        @Override
+        BinaryWriter integer(long value) {
+            if (value >= -32 && value < 128) {
+                buffer.appendByte((byte) value);
+            } else if (value >= 0) {
+                if (value < 0x100) {
+                    buffer.appendByte((byte) 0xcc).appendUnsignedByte((short) value);
+                } else if (value < 0x10000) {
+                    buffer.appendByte((byte) 0xcd).appendUnsignedShort((int) value);
+                } else if (value < 0x100000000L) {
+                    buffer.appendByte((byte) 0xce).appendUnsignedInt(value);
+                } else {
+                    buffer.appendByte((byte) 0xcf).appendLong(value);
+                }
+            } else if (value >= Byte.MIN_VALUE) {
+                buffer.appendByte((byte) 0xd0).appendByte((byte) value);
+            } else if (value >= Short.MIN_VALUE) {
+                buffer.appendByte((byte) 0xd1).appendShort((short) value);
+            } else if (value >= Integer.MIN_VALUE) {
+                buffer.appendByte((byte) 0xd2).appendInt((int) value);
+            } else {
+                buffer.appendByte((byte) 0xd3).appendLong(value);
+            }
+            return this;
+        }
+
+        @Override
+        BinaryWriter float64(double value) {
+            buffer.appendByte((byte) 0xcb).appendDouble(value);
+            return this;
+        }
+
+        @Override
+        BinaryWriter bool(boolean value) {
+            buffer.appendByte(value ? (byte) 0xc3 : (byte) 0xc2);
+            return this;
+        }
+
+        @Override
+        BinaryWriter nil() {
+            buffer.appendByte((byte) 0xc0);
+            return this;
+        }
+
+        @Override
+        BinaryWriter utf8(byte[] value, int offset, int length) {
+            if (length < 32) {
+                buffer.appendByte((byte) (0xa0 | length));
+            } else if (length < 0x100) {
+                buffer.appendByte((byte) 0xd9).appendUnsignedByte((short) length);
+            } else if (length < 0x10000) {
+                buffer.appendByte((byte) 0xda).appendUnsignedShort(length);
+            } else {
+                buffer.appendByte((byte) 0xdb).appendInt(length);
+            }
+            buffer.appendBytes(value, offset, length);
+            return this;
+        }
+
+        // MessagePack has no indefinite lengths: write a 32-bit size and patch it on close
+        @Override
+        int openMap() {
+            int mark = buffer.length();
+            buffer.appendByte((byte) 0xdf).appendInt(0);
+            return mark;
+        }
+
+        @Override
+        int openArray() {
+            int mark = buffer.length();
+            buffer.appendByte((byte) 0xdd).appendInt(0);
+            return mark;
+        }
+
+        @Override
+        void closeContainer(int mark, int size) {
+            buffer.setInt(mark + 1, size);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.gameserver.api;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated worker threads for CPU-heavy tasks with a bounded backlog. When
+ * {@code poolSize + maxQueueSize} tasks are already in flight, new tasks fail at once
+ * with {@link ServiceBusyException} instead of queueing behind them.
+ */
+class BoundedWorkerPool {
+
+    private final String name;
+    private final int poolSize;
+    private final int maxQueueSize;
+    private final WorkerExecutor executor;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    BoundedWorkerPool(Vertx vertx, String name, int poolSize, int maxQueueSize) {
+        this.name = name;
+        this.poolSize = poolSize;
+        this.maxQueueSize = maxQueueSize;
+        this.executor = vertx.createSharedWorkerExecutor(name, poolSize);
+    }
+
+    <T> Future<T> execute(Callable<T> task) {
+        return admit(() -> run(task));
+    }
+
+    /**
+     * Takes a slot before starting {@code work}, which may do cheap asynchronous steps
+     * before calling {@link #run(Callable)}; overloaded requests are rejected before any
+     * of that work is done.
+     */
+    <T> Future<T> admit(Supplier<Future<T>> work) {
+        if (inFlight.incrementAndGet() > poolSize + maxQueueSize) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            return Future.failedFuture(new ServiceBusyException(name + " queue is full"));
+        }
+        return work.get().onComplete(ar -> {
+            inFlight.decrementAndGet();
+            completed.increment();
+        });
+    }
+
+    /**
+     * Runs a task on the pool's threads; only call it from work passed to {@link #admit}.
+     */
+    <T> Future<T> run(Callable<T> task) {
+        return executor.executeBlocking(promise -> {
+            try {
+                promise.complete(task.call());
+            } catch (Exception e) {
+                promise.fail(e);
+            }
+        }, false);
+    }
+
+    Future<Void> close() {
+        return executor.close();
+    }
+
+    JsonObject stats() {
+        int current = inFlight.get();
+        return new JsonObject()
+            .put("poolSize", poolSize)
+            .put("maxQueueSize", maxQueueSize)
+            .put("active", Math.min(current, poolSize))
+            .put("queued", Math.max(0, current - poolSize))
+            .put("completed", completed.sum())
+            .put("rejected", rejected.sum());
+    }
+}
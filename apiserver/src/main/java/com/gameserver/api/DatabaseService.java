@@ -1,210 +1,626 @@
 package com.gameserver.api;
 
+import com.mchange.v2.c3p0.ComboPooledDataSource;
 import io.vertx.core.Future;
-import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.jdbc.JDBCClient;
-import io.vertx.ext.sql.SQLClient;
-import io.vertx.ext.sql.SQLConnection;
+import io.vertx.jdbcclient.JDBCPool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.SqlClient;
+import io.vertx.sqlclient.Tuple;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 public class DatabaseService {
     
+    public static final long DEFAULT_INVENTORY_CACHE_MAX_ITEMS = 100_000;
+    public static final long DEFAULT_INVENTORY_CACHE_TTL_MS = 30_000;
+    public static final int DEFAULT_POOL_MAX_SIZE = 16;
+    public static final int DEFAULT_POOL_MAX_WAIT_QUEUE_SIZE = 512;
+    public static final int DEFAULT_POOL_ACQUIRE_TIMEOUT_MS = 5_000;
+    public static final int DEFAULT_PREPARED_STATEMENT_CACHE_SIZE = 32;
+    public static final String DEFAULT_DB_PATH = "./data/gameserver";
+    public static final long DEFAULT_WRITE_BATCH_WINDOW_MS = 5;
+    public static final int DEFAULT_WRITE_MAX_BATCH_SIZE = 500;
+    public static final int DEFAULT_WRITE_MAX_QUEUE_SIZE = 10_000;
+    // Waiting logins per hashing thread; each costs one full hash of latency to those behind it
+    public static final int DEFAULT_PASSWORD_HASH_QUEUE_PER_THREAD = 8;
+    // 0: lookups made during one event-loop task are batched, without waiting for a timer
+    public static final long DEFAULT_LOOKUP_BATCH_WINDOW_MS = 0;
+    public static final int DEFAULT_LOOKUP_MAX_BATCH_SIZE = 64;
+    // Each open stream holds a pooled connection for as long as its client keeps reading
+    public static final int DEFAULT_INVENTORY_STREAM_MAX_CONCURRENT = 4;
+    
+    // The password is checked in Java against the stored hash, not in SQL
+    private static final String AUTHENTICATE_USER_SQL =
+        "SELECT id, username, password FROM users WHERE username = ?";
+    static final String AUTHENTICATE_USERS_SQL =
+        "SELECT id, username, password FROM users WHERE username = ANY(?)";
+    private static final String REHASH_PASSWORD_SQL =
+        "UPDATE users SET password = ? WHERE id = ? AND password = ?";
+    // properties is read as VARBINARY: the UTF-8 JSON bytes, which the JDBC decoder leaves intact.
+    // Ordering by the full index prefix lets H2 return rows index-sorted; the hint stops it
+    // from preferring the single-column foreign key index
+    static final String USER_INVENTORY_SQL = """
+            SELECT item_name, item_type, quantity, CAST(properties AS VARBINARY) AS properties
+            FROM inventory USE INDEX (idx_inventory_user_item)
+            WHERE user_id = ?
+            ORDER BY user_id, item_name
+        """;
+    // One statement text for any batch size, so it stays in the prepared statement cache
+    static final String USER_INVENTORIES_SQL = """
+            SELECT user_id, item_name, item_type, quantity, CAST(properties AS VARBINARY) AS properties
+            FROM inventory USE INDEX (idx_inventory_user_item)
+            WHERE user_id = ANY(?)
+            ORDER BY user_id, item_name
+        """;
+    // Row value comparison seeks straight to the key; (user_id, item_name, id) is the index order
+    static final String INVENTORY_PAGE_SQL = """
+            SELECT id, item_name, item_type, quantity, CAST(properties AS VARBINARY) AS properties
+            FROM inventory USE INDEX (idx_inventory_user_item)
+            WHERE user_id = ? AND (item_name, id) > (?, ?)
+            ORDER BY user_id, item_name, id
+            LIMIT ?
+        """;
+    
     private final Vertx vertx;
-    private SQLClient client;
+    private final String dbName;
+    private final InventoryCache inventoryCache;
+    private final int poolMaxSize;
+    private final int poolMaxWaitQueueSize;
+    private final int poolAcquireTimeoutMs;
+    private final int preparedStatementCacheSize;
+    private final boolean persistent;
+    private final String dbPath;
+    private final Integer cacheSizeKb;
+    private final Integer writeDelayMs;
+    private final Integer maxCompactTimeMs;
+    private final boolean compactOnClose;
+    private final long writeBatchWindowMs;
+    private final int writeMaxBatchSize;
+    private final int writeMaxQueueSize;
+    private final PasswordHasher passwordHasher;
+    private final int passwordHashPoolSize;
+    private final int passwordHashMaxQueueSize;
+    private final int streamMaxConcurrent;
+    
+    // Operations in flight, including those waiting for a connection
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final LongAdder streamsRejected = new LongAdder();
+    
+    // Versions only count changes made through this instance, so they are qualified by the
+    // time it was created; only users whose inventory changed since then have an entry
+    private final long inventoryVersionEpoch = System.currentTimeMillis();
+    private final Map<Integer, Long> inventoryVersions = new ConcurrentHashMap<>();
+    private final SingleFlight<Integer, List<InventoryItem>> inventoryLoads = new SingleFlight<>();
+    
+    // Lookups from concurrent requests, collected into one multi-key query
+    private final BatchLoader<String, Row> userLookups;
+    private final BatchLoader<Integer, List<InventoryItem>> inventoryLookups;
+    
+    private ComboPooledDataSource dataSource;
+    private JDBCPool pool;
+    private InventoryWriteBatcher writeBatcher;
+    private BoundedWorkerPool passwordWorkers;
+    private Future<Void> initFuture;
+    private Future<Void> closeFuture;
     
     public DatabaseService(Vertx vertx) {
-        this.vertx = vertx;
+        this(vertx, "gameserver", new JsonObject());
     }
     
     public DatabaseService(Vertx vertx, String dbName) {
-        this.vertx = vertx;
-        this.dbName = dbName;
+        this(vertx, dbName, new JsonObject());
     }
     
-    private String dbName = "gameserver";
-    
-    public Future<Void> init() {
-        Promise<Void> promise = Promise.promise();
+    public DatabaseService(Vertx vertx, String dbName, JsonObject config) {
+        this.vertx = vertx;
+        this.dbName = dbName;
+        
+        long cacheMaxItems = config.getLong("inventory.cache.maxItems", DEFAULT_INVENTORY_CACHE_MAX_ITEMS);
+        long cacheTtlMs = config.getLong("inventory.cache.ttlMs", DEFAULT_INVENTORY_CACHE_TTL_MS);
+        this.inventoryCache = cacheMaxItems > 0 && cacheTtlMs > 0
+            ? new InventoryCache(cacheMaxItems, cacheTtlMs)
+            : null;
+        
+        this.poolMaxSize = config.getInteger("db.pool.maxSize", DEFAULT_POOL_MAX_SIZE);
+        this.poolMaxWaitQueueSize = config.getInteger("db.pool.maxWaitQueueSize", DEFAULT_POOL_MAX_WAIT_QUEUE_SIZE);
+        this.poolAcquireTimeoutMs = config.getInteger("db.pool.acquireTimeoutMs", DEFAULT_POOL_ACQUIRE_TIMEOUT_MS);
+        this.preparedStatementCacheSize = config.getInteger("db.pool.preparedStatementCacheSize",
+            DEFAULT_PREPARED_STATEMENT_CACHE_SIZE);
         
-        JsonObject config = new JsonObject()
-            .put("url", "jdbc:h2:mem:" + dbName + ";DB_CLOSE_DELAY=-1")
-            .put("driver_class", "org.h2.Driver")
-            .put("user", "sa")
-            .put("password", "");
+        this.persistent = "file".equals(config.getString("db.mode", "memory"));
+        this.dbPath = config.getString("db.path", DEFAULT_DB_PATH);
+        this.cacheSizeKb = config.getInteger("db.cacheSizeKb");
+        this.writeDelayMs = config.getInteger("db.writeDelayMs");
+        this.maxCompactTimeMs = config.getInteger("db.maxCompactTimeMs");
+        this.compactOnClose = config.getBoolean("db.compactOnClose", false);
         
-        client = JDBCClient.createShared(vertx, config);
+        this.writeBatchWindowMs = config.getLong("inventory.write.batchWindowMs", DEFAULT_WRITE_BATCH_WINDOW_MS);
+        this.writeMaxBatchSize = config.getInteger("inventory.write.maxBatchSize", DEFAULT_WRITE_MAX_BATCH_SIZE);
+        this.writeMaxQueueSize = config.getInteger("inventory.write.maxQueueSize", DEFAULT_WRITE_MAX_QUEUE_SIZE);
         
-        createTables()
-            .compose(v -> insertSampleData())
-            .onSuccess(v -> promise.complete())
-            .onFailure(promise::fail);
+        this.passwordHasher = new PasswordHasher(config.getInteger("auth.pbkdf2.iterations", PasswordHasher.DEFAULT_ITERATIONS));
+        this.passwordHashPoolSize = config.getInteger("auth.hash.poolSize", Runtime.getRuntime().availableProcessors());
+        this.passwordHashMaxQueueSize = config.getInteger("auth.hash.maxQueueSize",
+            passwordHashPoolSize * DEFAULT_PASSWORD_HASH_QUEUE_PER_THREAD);
         
-        return promise.future();
+        long lookupBatchWindowMs = config.getLong("db.lookup.batchWindowMs", DEFAULT_LOOKUP_BATCH_WINDOW_MS);
+        int lookupMaxBatchSize = config.getInteger("db.lookup.maxBatchSize", DEFAULT_LOOKUP_MAX_BATCH_SIZE);
+        this.streamMaxConcurrent = config.getInteger("inventory.stream.maxConcurrent", DEFAULT_INVENTORY_STREAM_MAX_CONCURRENT);
+        this.userLookups = new BatchLoader<>(vertx, lookupBatchWindowMs, lookupMaxBatchSize, this::loadUsers);
+        this.inventoryLookups = new BatchLoader<>(vertx, lookupBatchWindowMs, lookupMaxBatchSize,
+            this::loadUserInventories);
     }
     
-    private Future<Void> createTables() {
-        Promise<Void> promise = Promise.promise();
-        
-        String createUsersTable = """
-            CREATE TABLE IF NOT EXISTS users (
-                id INT AUTO_INCREMENT PRIMARY KEY,
-                username VARCHAR(50) UNIQUE NOT NULL,
-                password VARCHAR(255) NOT NULL,
-                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-            )
-        """;
+    String jdbcUrl() {
+        StringBuilder url = new StringBuilder();
+        if (persistent) {
+            // MVStore file database; survives restarts
+            url.append("jdbc:h2:file:").append(dbPath);
+        } else {
+            url.append("jdbc:h2:mem:").append(dbName).append(";DB_CLOSE_DELAY=-1");
+        }
+        if (cacheSizeKb != null) {
+            url.append(";CACHE_SIZE=").append(cacheSizeKb);
+        }
+        if (writeDelayMs != null) {
+            url.append(";WRITE_DELAY=").append(writeDelayMs);
+        }
+        if (maxCompactTimeMs != null) {
+            url.append(";MAX_COMPACT_TIME=").append(maxCompactTimeMs);
+        }
+        return url.toString();
+    }
+    
+    public synchronized Future<Void> init() {
+        // Memoized so that verticle instances sharing this service initialize the schema only once
+        if (initFuture == null) {
+            initFuture = doInit();
+        }
+        return initFuture;
+    }
+    
+    private Future<Void> doInit() {
+        dataSource = new ComboPooledDataSource();
+        dataSource.setJdbcUrl(jdbcUrl());
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        dataSource.setMaxPoolSize(poolMaxSize);
+        dataSource.setCheckoutTimeout(poolAcquireTimeoutMs);
+        // Per-connection cache of java.sql.PreparedStatement, reused by preparedQuery()
+        dataSource.setMaxStatementsPerConnection(preparedStatementCacheSize);
         
-        String createInventoryTable = """
-            CREATE TABLE IF NOT EXISTS inventory (
-                id INT AUTO_INCREMENT PRIMARY KEY,
-                user_id INT NOT NULL,
-                item_name VARCHAR(100) NOT NULL,
-                item_type VARCHAR(50) NOT NULL,
-                quantity INT DEFAULT 1,
-                properties VARCHAR(1000),
-                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                FOREIGN KEY (user_id) REFERENCES users(id)
-            )
-        """;
+        pool = JDBCPool.pool(vertx, dataSource, new JsonObject()
+            .put("datasourceName", dbName)
+            .put("max_pool_size", poolMaxSize));
+        writeBatcher = new InventoryWriteBatcher(vertx, dataSource, dbName, writeBatchWindowMs, writeMaxBatchSize,
+            writeMaxQueueSize, this::onInventoryCommitted);
+        passwordWorkers = new BoundedWorkerPool(vertx, "password-hasher-" + dbName, passwordHashPoolSize,
+            passwordHashMaxQueueSize);
         
-        client.getConnection(connResult -> {
-            if (connResult.succeeded()) {
-                SQLConnection connection = connResult.result();
-                
-                connection.execute(createUsersTable, userTableResult -> {
-                    if (userTableResult.succeeded()) {
-                        connection.execute(createInventoryTable, inventoryTableResult -> {
-                            connection.close();
-                            if (inventoryTableResult.succeeded()) {
-                                promise.complete();
-                            } else {
-                                promise.fail(inventoryTableResult.cause());
-                            }
-                        });
-                    } else {
-                        connection.close();
-                        promise.fail(userTableResult.cause());
-                    }
-                });
-            } else {
-                promise.fail(connResult.cause());
-            }
-        });
-        
-        return promise.future();
+        return SchemaMigrations.migrate(pool)
+            .compose(version -> isSeeded())
+            .compose(seeded -> seeded ? Future.succeededFuture() : insertSampleData());
+    }
+    
+    public synchronized Future<Void> close() {
+        // Memoized like init(), so every verticle instance sharing this service may close it
+        if (closeFuture == null) {
+            closeFuture = doClose();
+        }
+        return closeFuture;
+    }
+    
+    private Future<Void> doClose() {
+        if (pool == null) {
+            return Future.succeededFuture();
+        }
+        // Queued inventory writes are committed before the database goes away
+        return writeBatcher.close()
+            .compose(v -> passwordWorkers.close())
+            .compose(v -> persistent && compactOnClose
+                ? pool.query("SHUTDOWN COMPACT").execute().<Void>mapEmpty().recover(error -> Future.succeededFuture())
+                : Future.<Void>succeededFuture())
+            .compose(v -> pool.close())
+            .onComplete(ar -> dataSource.close());
+    }
+    
+    SqlClient client() {
+        return pool;
+    }
+    
+    /**
+     * Runs a pool operation unless the number of operations already waiting for a
+     * connection exceeds db.pool.maxWaitQueueSize, in which case it fails fast.
+     */
+    private <T> Future<T> withPool(Supplier<Future<T>> operation) {
+        if (!tryAcquire()) {
+            return Future.failedFuture(new ServiceBusyException("Database connection pool wait queue is full"));
+        }
+        return operation.get()
+            .onComplete(ar -> pending.decrementAndGet());
+    }
+    
+    private boolean tryAcquire() {
+        if (pending.incrementAndGet() > poolMaxSize + poolMaxWaitQueueSize) {
+            pending.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+    
+    public JsonObject getPoolStats() {
+        int inFlight = pending.get();
+        return new JsonObject()
+            .put("maxSize", poolMaxSize)
+            .put("maxWaitQueueSize", poolMaxWaitQueueSize)
+            .put("active", Math.min(inFlight, poolMaxSize))
+            .put("waiting", Math.max(0, inFlight - poolMaxSize))
+            .put("rejected", rejected.sum())
+            .put("streams", openStreams.get())
+            .put("streamsRejected", streamsRejected.sum());
+    }
+    
+    private Future<Boolean> isSeeded() {
+        // An existing file database keeps its players; only seed an empty schema
+        return pool.query("SELECT COUNT(*) FROM users").execute()
+            .map(rows -> rows.iterator().next().getLong(0) > 0);
     }
     
     private Future<Void> insertSampleData() {
-        Promise<Void> promise = Promise.promise();
-        
+        // PBKDF2 hashes of password123, password456 and admin123
         String insertUsers = """
             INSERT INTO users (username, password) VALUES 
-            ('player1', 'password123'),
-            ('player2', 'password456'),
-            ('admin', 'admin123')
+            ('player1', 'pbkdf2_sha256$310000$ZVdKtTB7ZH6cyyX9+Z+WLA$JjDvjxDBFpRt59GnLDNiZM6XmsvPDfARfJPhM/iO3Es'),
+            ('player2', 'pbkdf2_sha256$310000$BalpbJe4H8awmxOjO+LW3Q$L9bVQI3ejI27gVOT2hFIxM8Q/lOJoH9U68fvktXyeys'),
+            ('admin', 'pbkdf2_sha256$310000$+UNayQX8V2lycUoyBaDtGw$tR++rdjjkIJaVm04HcVOLTwdWa1NOie4+xDAfPztUic')
         """;
         
         String insertInventory = """
             INSERT INTO inventory (user_id, item_name, item_type, quantity, properties) VALUES 
-            (1, 'Iron Sword', 'weapon', 1, '{"damage": 50, "durability": 100}'),
-            (1, 'Health Potion', 'consumable', 5, '{"healing": 25}'),
-            (1, 'Leather Armor', 'armor', 1, '{"defense": 20, "durability": 80}'),
-            (2, 'Magic Staff', 'weapon', 1, '{"damage": 75, "mana_cost": 10}'),
-            (2, 'Mana Potion', 'consumable', 3, '{"mana_restore": 50}'),
-            (3, 'Admin Key', 'special', 1, '{"access_level": "admin"}')
+            (1, 'Iron Sword', 'weapon', 1, JSON '{"damage": 50, "durability": 100}'),
+            (1, 'Health Potion', 'consumable', 5, JSON '{"healing": 25}'),
+            (1, 'Leather Armor', 'armor', 1, JSON '{"defense": 20, "durability": 80}'),
+            (2, 'Magic Staff', 'weapon', 1, JSON '{"damage": 75, "mana_cost": 10}'),
+            (2, 'Mana Potion', 'consumable', 3, JSON '{"mana_restore": 50}'),
+            (3, 'Admin Key', 'special', 1, JSON '{"access_level": "admin"}')
         """;
         
-        client.getConnection(connResult -> {
-            if (connResult.succeeded()) {
-                SQLConnection connection = connResult.result();
-                
-                connection.execute(insertUsers, userInsertResult -> {
-                    if (userInsertResult.succeeded()) {
-                        connection.execute(insertInventory, inventoryInsertResult -> {
-                            connection.close();
-                            if (inventoryInsertResult.succeeded()) {
-                                promise.complete();
-                            } else {
-                                promise.fail(inventoryInsertResult.cause());
-                            }
-                        });
-                    } else {
-                        connection.close();
-                        promise.fail(userInsertResult.cause());
-                    }
-                });
-            } else {
-                promise.fail(connResult.cause());
-            }
-        });
-        
-        return promise.future();
+        return pool.query(insertUsers).execute()
+            .compose(v -> pool.query(insertInventory).execute())
+            .mapEmpty();
     }
     
+    /**
+     * Looks the user up by name and verifies the password hash on the password worker pool.
+     * Fails with {@link ServiceBusyException} when that pool's queue is full.
+     */
     public Future<JsonObject> authenticateUser(String username, String password) {
-        Promise<JsonObject> promise = Promise.promise();
+        // Admission first, so a login storm is shed before it costs a database lookup
+        return passwordWorkers.admit(() -> userLookups.load(username)
+            .compose(row -> {
+                // Unknown users still cost one hash so response times do not reveal them
+                String stored = row != null ? row.getString(2) : passwordHasher.dummyHash();
+                return passwordWorkers.run(() -> passwordHasher.verify(password, stored))
+                    .map(matches -> {
+                        if (!matches || row == null) {
+                            return null;
+                        }
+                        if (passwordHasher.needsRehash(stored)) {
+                            rehashPassword(row.getInteger(0), password, stored);
+                        }
+                        return new JsonObject()
+                            .put("ID", row.getInteger(0))
+                            .put("USERNAME", row.getString(1));
+                    });
+            }));
+    }
+    
+    // Upgrades plaintext or weaker hashes after a successful login; best effort
+    private void rehashPassword(int userId, String password, String stored) {
+        passwordWorkers.execute(() -> passwordHasher.hash(password))
+            .compose(hash -> withPool(() -> pool.preparedQuery(REHASH_PASSWORD_SQL).execute(Tuple.of(hash, userId, stored))));
+    }
+    
+    public JsonObject getPasswordWorkerStats() {
+        return passwordWorkers != null ? passwordWorkers.stats() : new JsonObject();
+    }
+    
+    /**
+     * Returns the user's inventory items, served from the read-through cache when possible.
+     * Concurrent misses for the same user share one query. The returned list is immutable
+     * and may be shared with other callers.
+     */
+    public Future<List<InventoryItem>> getUserInventoryItems(int userId) {
+        List<InventoryItem> cached = inventoryCache != null ? inventoryCache.get(userId) : null;
+        if (cached != null) {
+            return Future.succeededFuture(cached);
+        }
         
-        String query = "SELECT id, username FROM users WHERE username = ? AND password = ?";
-        JsonArray params = new JsonArray().add(username).add(password);
+        return inventoryLoads.load(userId, getInventoryVersion(userId), () -> {
+            if (inventoryCache == null) {
+                return loadUserInventory(userId);
+            }
+            long generation = inventoryCache.generation(userId);
+            return loadUserInventory(userId)
+                .onSuccess(items -> inventoryCache.put(userId, items, generation));
+        });
+    }
+    
+    /**
+     * Returns the inventories of several users, keyed by user id in the order given. Users
+     * missing from the cache are loaded together with one query; users without items map
+     * to an empty list.
+     */
+    public Future<Map<Integer, List<InventoryItem>>> getUserInventories(Collection<Integer> userIds) {
+        Map<Integer, List<InventoryItem>> result = new LinkedHashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer userId : userIds) {
+            if (result.containsKey(userId)) {
+                continue;
+            }
+            List<InventoryItem> cached = inventoryCache != null ? inventoryCache.get(userId) : null;
+            result.put(userId, cached);
+            if (cached == null) {
+                missing.add(userId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return Future.succeededFuture(result);
+        }
         
-        client.queryWithParams(query, params, result -> {
-            if (result.succeeded()) {
-                var rows = result.result().getRows();
-                if (rows.size() > 0) {
-                    promise.complete(rows.get(0));
-                } else {
-                    promise.complete(null);
+        long[] generations = new long[missing.size()];
+        if (inventoryCache != null) {
+            for (int i = 0; i < generations.length; i++) {
+                generations[i] = inventoryCache.generation(missing.get(i));
+            }
+        }
+        return loadUserInventories(missing).map(loaded -> {
+            for (int i = 0; i < generations.length; i++) {
+                Integer userId = missing.get(i);
+                List<InventoryItem> items = loaded.getOrDefault(userId, List.of());
+                result.put(userId, items);
+                if (inventoryCache != null) {
+                    inventoryCache.put(userId, items, generations[i]);
                 }
-            } else {
-                promise.fail(result.cause());
             }
+            return result;
         });
-        
-        return promise.future();
     }
     
+    /**
+     * Returns the user's inventory as a JSON tree. Parses every item's properties; the
+     * HTTP path uses {@link #getUserInventoryItems(int)} and writes them raw instead.
+     */
     public Future<JsonArray> getUserInventory(int userId) {
-        Promise<JsonArray> promise = Promise.promise();
-        
-        String query = """
-            SELECT item_name, item_type, quantity, properties 
-            FROM inventory 
-            WHERE user_id = ?
-            ORDER BY item_name
-        """;
-        JsonArray params = new JsonArray().add(userId);
-        
-        client.queryWithParams(query, params, result -> {
-            if (result.succeeded()) {
-                JsonArray inventory = new JsonArray();
-                for (JsonObject item : result.result().getRows()) {
-                    String propertiesStr = item.getString("PROPERTIES");
-                    
-                    JsonObject normalizedItem = new JsonObject()
-                        .put("item_name", item.getString("ITEM_NAME"))
-                        .put("item_type", item.getString("ITEM_TYPE"))
-                        .put("quantity", item.getInteger("QUANTITY"));
-                    
-                    if (propertiesStr != null && !propertiesStr.trim().isEmpty()) {
-                        try {
-                            JsonObject properties = new JsonObject(propertiesStr);
-                            normalizedItem.put("properties", properties);
-                        } catch (Exception e) {
-                            normalizedItem.put("properties", new JsonObject());
-                        }
-                    } else {
-                        normalizedItem.put("properties", new JsonObject());
+        return getUserInventoryItems(userId).map(DatabaseService::toJsonArray);
+    }
+    
+    /**
+     * Drops the cached inventory of a user and bumps their inventory version; must be called
+     * whenever their inventory rows change.
+     */
+    public void invalidateInventory(int userId) {
+        if (inventoryCache != null) {
+            inventoryCache.invalidate(userId);
+        }
+        // After the cache, so that a reader who sees the new version cannot get stale items
+        inventoryVersions.merge(userId, 1L, Long::sum);
+    }
+    
+    /**
+     * Event bus address on which every committed change to the user's inventory is
+     * published, as JSON text: {@code {"type":"delta","version":..,"changes":[..]}} with the
+     * changes in commit order (see {@link InventoryMutation#toJson()}). Versions are those of
+     * {@link #getInventoryVersion(int)}; changes committed together share one version.
+     */
+    public String inventoryChangesAddress(int userId) {
+        return inventoryChangesAddress(dbName, userId);
+    }
+    
+    static String inventoryChangesAddress(String dbName, int userId) {
+        return "inventory.changes." + dbName + "." + userId;
+    }
+    
+    // Runs on the writer thread after each group commit, so a user's deltas are published in order
+    private void onInventoryCommitted(List<InventoryMutation> mutations) {
+        Map<Integer, JsonArray> changesByUser = new LinkedHashMap<>();
+        for (InventoryMutation mutation : mutations) {
+            changesByUser.computeIfAbsent(mutation.userId(), userId -> new JsonArray()).add(mutation.toJson());
+        }
+        changesByUser.forEach((userId, changes) -> {
+            invalidateInventory(userId);
+            // Encoded once here rather than by each subscriber
+            String delta = new JsonObject()
+                .put("type", "delta")
+                .put("version", getInventoryVersion(userId))
+                .put("changes", changes)
+                .encode();
+            vertx.eventBus().publish(inventoryChangesAddress(userId), delta);
+        });
+    }
+    
+    /**
+     * Returns a counter that increases whenever the user's inventory changes. Read it before
+     * loading the inventory: it then never describes a newer state than the items.
+     */
+    public long getInventoryVersion(int userId) {
+        return inventoryVersions.getOrDefault(userId, 0L);
+    }
+    
+    /**
+     * Identifies the lifetime of this service's version counters, which restart at zero.
+     */
+    public long getInventoryVersionEpoch() {
+        return inventoryVersionEpoch;
+    }
+    
+    /**
+     * Queues an inventory change for the next group commit. The future completes once the
+     * batch containing it has committed (and the user's cached inventory was invalidated),
+     * or fails with {@link InventoryMutationException} if the change does not apply.
+     */
+    public Future<Void> mutateInventory(InventoryMutation mutation) {
+        return writeBatcher.submit(mutation);
+    }
+    
+    public JsonObject getInventoryWriteStats() {
+        return writeBatcher != null ? writeBatcher.stats() : new JsonObject();
+    }
+    
+    public JsonObject getInventoryLoadStats() {
+        return inventoryLoads.stats();
+    }
+    
+    public JsonObject getUserLookupStats() {
+        return userLookups.stats();
+    }
+    
+    public JsonObject getInventoryLookupStats() {
+        return inventoryLookups.stats();
+    }
+    
+    public JsonObject getInventoryCacheStats() {
+        return inventoryCache != null ? inventoryCache.stats() : new JsonObject();
+    }
+    
+    /**
+     * Returns up to {@code limit} items ordered by (item_name, id) that sort after {@code after}.
+     * Pages are read from the database directly and bypass the inventory cache.
+     */
+    public Future<InventoryPage> getUserInventoryPage(int userId, InventoryPage.Key after, int limit) {
+        // One extra row tells whether another page follows
+        return withPool(() -> pool.preparedQuery(INVENTORY_PAGE_SQL)
+            .execute(Tuple.of(userId, after.itemName(), after.id(), limit + 1))
+            .map(rows -> {
+                List<InventoryItem> items = new ArrayList<>(Math.min(rows.size(), limit));
+                InventoryPage.Key last = null;
+                for (Row row : rows) {
+                    if (items.size() == limit) {
+                        return new InventoryPage(Collections.unmodifiableList(items), last);
                     }
-                    inventory.add(normalizedItem);
+                    items.add(new InventoryItem(row.getString(1), row.getString(2), row.getInteger(3),
+                        row.getBuffer(4).getBytes()));
+                    last = new InventoryPage.Key(row.getString(1), row.getInteger(0));
                 }
-                promise.complete(inventory);
-            } else {
-                promise.fail(result.cause());
+                return new InventoryPage(Collections.unmodifiableList(items), null);
+            }));
+    }
+    
+    /**
+     * Opens a cursor over the user's whole inventory for streaming. The cursor holds a
+     * connection (and a slot in the pool wait queue) until it is closed. At most
+     * inventory.stream.maxConcurrent cursors are open at once, so slow readers cannot take
+     * every connection; beyond that, opening fails fast.
+     */
+    public Future<InventoryCursor> openInventoryCursor(int userId, int fetchSize) {
+        if (openStreams.incrementAndGet() > streamMaxConcurrent) {
+            openStreams.decrementAndGet();
+            streamsRejected.increment();
+            return Future.failedFuture(new ServiceBusyException("Too many inventory streams"));
+        }
+        if (!tryAcquire()) {
+            openStreams.decrementAndGet();
+            return Future.failedFuture(new ServiceBusyException("Database connection pool wait queue is full"));
+        }
+        Runnable release = () -> {
+            pending.decrementAndGet();
+            openStreams.decrementAndGet();
+        };
+        // The JDBC pool in vertx-jdbc-client has no cursor support, so stream from the data source directly
+        return vertx.<InventoryCursor>executeBlocking(promise -> {
+            try {
+                promise.complete(InventoryCursor.open(vertx, dataSource.getConnection(), USER_INVENTORY_SQL,
+                    userId, fetchSize, release));
+            } catch (SQLException | RuntimeException e) {
+                release.run();
+                promise.fail(e);
             }
-        });
-        
-        return promise.future();
+        }, false);
+    }
+    
+    private Future<List<InventoryItem>> loadUserInventory(int userId) {
+        return inventoryLookups.load(userId).map(items -> items != null ? items : List.of());
+    }
+    
+    // A batch of one keeps the single-key statement
+    private Future<Map<String, Row>> loadUsers(List<String> usernames) {
+        return withPool(() -> (usernames.size() == 1
+                ? pool.preparedQuery(AUTHENTICATE_USER_SQL).execute(Tuple.of(usernames.get(0)))
+                : pool.preparedQuery(AUTHENTICATE_USERS_SQL).execute(Tuple.of(usernames.toArray(new String[0]))))
+            .map(rows -> {
+                Map<String, Row> users = new HashMap<>();
+                for (Row row : rows) {
+                    users.put(row.getString(1), row);
+                }
+                return users;
+            }));
+    }
+    
+    private Future<Map<Integer, List<InventoryItem>>> loadUserInventories(List<Integer> userIds) {
+        if (userIds.size() == 1) {
+            int userId = userIds.get(0);
+            return withPool(() -> pool.preparedQuery(USER_INVENTORY_SQL)
+                .execute(Tuple.of(userId))
+                .map(rows -> Map.of(userId, toItems(rows))));
+        }
+        return withPool(() -> pool.preparedQuery(USER_INVENTORIES_SQL)
+            .execute(Tuple.of(userIds.toArray(new Integer[0])))
+            .map(rows -> {
+                // Rows arrive ordered by user_id, so each user's items are contiguous
+                Map<Integer, List<InventoryItem>> grouped = new HashMap<>();
+                List<InventoryItem> current = null;
+                int currentUserId = 0;
+                for (Row row : rows) {
+                    int userId = row.getInteger(0);
+                    if (current == null || userId != currentUserId) {
+                        current = new ArrayList<>();
+                        currentUserId = userId;
+                        grouped.put(userId, current);
+                    }
+                    current.add(new InventoryItem(row.getString(1), row.getString(2), row.getInteger(3),
+                        row.getBuffer(4).getBytes()));
+                }
+                grouped.replaceAll((userId, items) -> Collections.unmodifiableList(items));
+                return grouped;
+            }));
+    }
+    
+    static List<InventoryItem> toItems(RowSet<Row> rows) {
+        List<InventoryItem> items = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            items.add(new InventoryItem(row.getString(0), row.getString(1), row.getInteger(2), row.getBuffer(3).getBytes()));
+        }
+        return Collections.unmodifiableList(items);
+    }
+    
+    static JsonArray toJsonArray(List<InventoryItem> items) {
+        JsonArray inventory = new JsonArray();
+        for (InventoryItem item : items) {
+            inventory.add(new JsonObject()
+                .put("item_name", item.itemName())
+                .put("item_type", item.itemType())
+                .put("quantity", item.quantity())
+                .put("properties", new JsonObject(Buffer.buffer(item.properties()))));
+        }
+        return inventory;
     }
-}
\ No newline at end of file
+}
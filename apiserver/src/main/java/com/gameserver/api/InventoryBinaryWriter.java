@@ -0,0 +1,74 @@
+package com.gameserver.api;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Encodes the inventory and login responses in a binary format, with the same fields as
+ * their JSON form. Values are written straight from the rows; stored item properties are
+ * transcoded from their JSON bytes.
+ */
+final class InventoryBinaryWriter {
+
+    private static final byte[] USER_ID = utf8("userId");
+    private static final byte[] INVENTORY = utf8("inventory");
+    private static final byte[] NEXT = utf8("next");
+    private static final byte[] ITEM_NAME = utf8("item_name");
+    private static final byte[] ITEM_TYPE = utf8("item_type");
+    private static final byte[] QUANTITY = utf8("quantity");
+    private static final byte[] PROPERTIES = utf8("properties");
+    private static final byte[] SUCCESS = utf8("success");
+    private static final byte[] USERNAME = utf8("username");
+    private static final byte[] ACCESS_TOKEN = utf8("accessToken");
+
+    private static final int ESTIMATED_ITEM_SIZE = 128;
+
+    private InventoryBinaryWriter() {
+    }
+
+    static Buffer encode(Function<Buffer, BinaryWriter> format, int userId, List<InventoryItem> items) {
+        return write(format.apply(Buffer.buffer(32 + items.size() * ESTIMATED_ITEM_SIZE)), userId, items);
+    }
+
+    static Buffer write(BinaryWriter writer, int userId, List<InventoryItem> items) {
+        writer.mapHeader(2);
+        appendInventory(writer, userId, items);
+        return writer.buffer;
+    }
+
+    static Buffer writePage(BinaryWriter writer, int userId, InventoryPage page) {
+        writer.mapHeader(3);
+        appendInventory(writer, userId, page.items());
+        writer.utf8(NEXT).string(page.next() != null ? page.next().toString() : null);
+        return writer.buffer;
+    }
+
+    static Buffer encodeLogin(Function<Buffer, BinaryWriter> format, int userId, String username, String accessToken) {
+        BinaryWriter writer = format.apply(Buffer.buffer(64 + accessToken.length()));
+        writer.mapHeader(4)
+            .utf8(SUCCESS).bool(true)
+            .utf8(USER_ID).integer(userId)
+            .utf8(USERNAME).string(username)
+            .utf8(ACCESS_TOKEN).string(accessToken);
+        return writer.buffer;
+    }
+
+    private static void appendInventory(BinaryWriter writer, int userId, List<InventoryItem> items) {
+        writer.utf8(USER_ID).integer(userId)
+            .utf8(INVENTORY).arrayHeader(items.size());
+        for (InventoryItem item : items) {
+            writer.mapHeader(4)
+                .utf8(ITEM_NAME).string(item.itemName())
+                .utf8(ITEM_TYPE).string(item.itemType())
+                .utf8(QUANTITY).integer(item.quantity())
+                .utf8(PROPERTIES).json(item.properties());
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,168 @@
+package com.gameserver.api;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user cache of normalized inventories, shared by all verticle instances.
+ * Eviction is LRU weighted by item count, entries expire after a TTL, and writers
+ * must call {@link #invalidate(int)} whenever a user's rows change.
+ * Cached lists are immutable and shared between readers.
+ * <p>
+ * Users are spread over independently locked segments, so event loops reading different
+ * users rarely contend. Each segment evicts LRU within an equal share of the weight, which
+ * makes eviction approximately LRU overall; small caches use a single segment.
+ */
+class InventoryCache {
+
+    private static final int GENERATION_STRIPES = 64;
+    // A segment's share must still hold a large inventory
+    private static final long MIN_SEGMENT_WEIGHT = 4096;
+
+    private record Entry(List<InventoryItem> inventory, int weight, long expiresAtNanos) {
+    }
+
+    private static final class Segment {
+        private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private long totalWeight;
+
+        private void remove(int userId) {
+            Entry removed = entries.remove(userId);
+            if (removed != null) {
+                totalWeight -= removed.weight();
+            }
+        }
+    }
+
+    private final long maxWeight;
+    private final long segmentMaxWeight;
+    private final long ttlNanos;
+    private final Segment[] segments;
+
+    // Bumped on invalidation so that a load which started before a write cannot store stale rows.
+    // The segment count divides the stripe count, so a stripe is always guarded by one segment's lock
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    InventoryCache(long maxWeight, long ttlMillis) {
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        int segmentCount = 1;
+        while (segmentCount < GENERATION_STRIPES && maxWeight / (segmentCount * 2L) >= MIN_SEGMENT_WEIGHT) {
+            segmentCount *= 2;
+        }
+        this.segmentMaxWeight = maxWeight / segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    List<InventoryItem> get(int userId) {
+        long now = System.nanoTime();
+        Segment segment = segment(userId);
+        synchronized (segment) {
+            Entry entry = segment.entries.get(userId);
+            if (entry != null) {
+                if (now - entry.expiresAtNanos() < 0) {
+                    hits.increment();
+                    return entry.inventory();
+                }
+                segment.remove(userId);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    long generation(int userId) {
+        return generations.get(stripe(userId));
+    }
+
+    void put(int userId, List<InventoryItem> inventory, long generation) {
+        int weight = Math.max(1, inventory.size());
+        if (weight > segmentMaxWeight) {
+            return;
+        }
+        Entry entry = new Entry(inventory, weight, System.nanoTime() + ttlNanos);
+        Segment segment = segment(userId);
+        synchronized (segment) {
+            if (generations.get(stripe(userId)) != generation) {
+                return;
+            }
+            Entry previous = segment.entries.put(userId, entry);
+            if (previous != null) {
+                segment.totalWeight -= previous.weight();
+            }
+            segment.totalWeight += weight;
+
+            Iterator<Map.Entry<Integer, Entry>> eldest = segment.entries.entrySet().iterator();
+            while (segment.totalWeight > segmentMaxWeight && eldest.hasNext()) {
+                segment.totalWeight -= eldest.next().getValue().weight();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    void invalidate(int userId) {
+        Segment segment = segment(userId);
+        synchronized (segment) {
+            generations.incrementAndGet(stripe(userId));
+            segment.remove(userId);
+        }
+        invalidations.increment();
+    }
+
+    private Segment segment(int userId) {
+        return segments[Math.floorMod(userId, segments.length)];
+    }
+
+    private static int stripe(int userId) {
+        return Math.floorMod(userId, GENERATION_STRIPES);
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    JsonObject stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        int size = 0;
+        long weight = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+                weight += segment.totalWeight;
+            }
+        }
+        return new JsonObject()
+            .put("size", size)
+            .put("weight", weight)
+            .put("maxWeight", maxWeight)
+            .put("hits", hitCount)
+            .put("misses", missCount)
+            .put("hitRatio", requests == 0 ? 0.0 : (double) hitCount / requests)
+            .put("evictions", evictions.sum())
+            .put("invalidations", invalidations.sum());
+    }
+}
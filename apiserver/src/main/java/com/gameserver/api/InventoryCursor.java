@@ -0,0 +1,108 @@
+package com.gameserver.api;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Open JDBC cursor over one user's inventory, read in chunks on worker threads.
+ * Holds a pooled connection until {@link #close()}; callers must not overlap calls.
+ */
+public class InventoryCursor {
+
+    private final Vertx vertx;
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final Runnable onClose;
+
+    // Serializes reads and the final close; only touched from the caller's context
+    private Future<?> last = Future.succeededFuture();
+    private boolean closed;
+
+    private InventoryCursor(Vertx vertx, Connection connection, PreparedStatement statement,
+                            ResultSet resultSet, Runnable onClose) {
+        this.vertx = vertx;
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.onClose = onClose;
+    }
+
+    static InventoryCursor open(Vertx vertx, Connection connection, String sql, int userId, int fetchSize,
+                                Runnable onClose) throws SQLException {
+        try {
+            // Stream rows from the index instead of materializing the whole result first
+            try (Statement session = connection.createStatement()) {
+                session.execute("SET LAZY_QUERY_EXECUTION TRUE");
+            }
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(fetchSize);
+            statement.setInt(1, userId);
+            return new InventoryCursor(vertx, connection, statement, statement.executeQuery(), onClose);
+        } catch (SQLException | RuntimeException e) {
+            release(connection);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads up to {@code maxRows} items; an empty list means the cursor is exhausted.
+     */
+    public Future<List<InventoryItem>> next(int maxRows) {
+        if (closed) {
+            return Future.failedFuture(new IllegalStateException("Cursor is closed"));
+        }
+        Future<List<InventoryItem>> read = vertx.executeBlocking(promise -> {
+            try {
+                List<InventoryItem> items = new ArrayList<>(maxRows);
+                while (items.size() < maxRows && resultSet.next()) {
+                    items.add(new InventoryItem(resultSet.getString(1), resultSet.getString(2),
+                        resultSet.getInt(3), resultSet.getBytes(4)));
+                }
+                promise.complete(items);
+            } catch (SQLException e) {
+                promise.fail(e);
+            }
+        }, false);
+        last = read;
+        return read;
+    }
+
+    public Future<Void> close() {
+        if (closed) {
+            return Future.succeededFuture();
+        }
+        closed = true;
+        return last.transform(ar -> vertx.<Void>executeBlocking(promise -> {
+            try {
+                resultSet.close();
+                statement.close();
+            } catch (SQLException ignored) {
+                // The connection is released below regardless
+            }
+            release(connection);
+            onClose.run();
+            promise.complete();
+        }, false));
+    }
+
+    private static void release(Connection connection) {
+        try (Statement session = connection.createStatement()) {
+            session.execute("SET LAZY_QUERY_EXECUTION FALSE");
+        } catch (SQLException ignored) {
+            // Closing below returns or discards the connection either way
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.gameserver.api;
+
+/**
+ * One inventory row. {@code properties} holds the JSON object exactly as stored in the
+ * validated JSON column (UTF-8), so it can be written to responses without re-encoding.
+ * The array is shared and must not be modified.
+ */
+public record InventoryItem(String itemName, String itemType, int quantity, byte[] properties) {
+}
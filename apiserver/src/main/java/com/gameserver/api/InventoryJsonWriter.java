@@ -0,0 +1,153 @@
+package com.gameserver.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes inventory responses by streaming Jackson tokens into a Buffer, which may wrap
+ * pooled memory. Item properties are already valid JSON (enforced by the column check
+ * constraint) and are copied in as raw bytes.
+ */
+final class InventoryJsonWriter {
+
+    // No separator between root values, so a stream chunk is just its items
+    private static final JsonFactory JSON_FACTORY = new JsonFactoryBuilder()
+        .rootValueSeparator((String) null)
+        .build();
+    private static final SerializableString USER_ID = new SerializedString("userId");
+    private static final SerializableString INVENTORY = new SerializedString("inventory");
+    private static final SerializableString INVENTORIES = new SerializedString("inventories");
+    private static final SerializableString NEXT = new SerializedString("next");
+    private static final SerializableString ITEM_NAME = new SerializedString("item_name");
+    private static final SerializableString ITEM_TYPE = new SerializedString("item_type");
+    private static final SerializableString QUANTITY = new SerializedString("quantity");
+    private static final SerializableString PROPERTIES = new SerializedString("properties");
+    private static final int ESTIMATED_ITEM_SIZE = 128;
+
+    private InventoryJsonWriter() {
+    }
+
+    static int estimateSize(int itemCount) {
+        return 96 + itemCount * ESTIMATED_ITEM_SIZE;
+    }
+
+    static Buffer write(Buffer target, int userId, List<InventoryItem> items) {
+        try (JsonGenerator generator = generator(target)) {
+            generator.writeStartObject();
+            writeInventory(generator, target, userId, items);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return target;
+    }
+
+    static Buffer writeBatch(Buffer target, Map<Integer, List<InventoryItem>> inventories) {
+        try (JsonGenerator generator = generator(target)) {
+            generator.writeStartObject();
+            generator.writeFieldName(INVENTORIES);
+            generator.writeStartArray();
+            for (Map.Entry<Integer, List<InventoryItem>> entry : inventories.entrySet()) {
+                generator.writeStartObject();
+                writeInventory(generator, target, entry.getKey(), entry.getValue());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return target;
+    }
+
+    static Buffer writePage(Buffer target, int userId, InventoryPage page) {
+        try (JsonGenerator generator = generator(target)) {
+            generator.writeStartObject();
+            writeInventory(generator, target, userId, page.items());
+            generator.writeFieldName(NEXT);
+            generator.writeString(page.next() != null ? page.next().toString() : null);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return target;
+    }
+
+    private static void writeInventory(JsonGenerator generator, Buffer target, int userId,
+                                       List<InventoryItem> items) throws IOException {
+        generator.writeFieldName(USER_ID);
+        generator.writeNumber(userId);
+        generator.writeFieldName(INVENTORY);
+        generator.writeStartArray();
+        for (InventoryItem item : items) {
+            writeItem(generator, target, item);
+        }
+        generator.writeEndArray();
+    }
+
+    static Buffer encodeStreamStart(int userId) {
+        return Buffer.buffer("{\"userId\":" + userId + ",\"inventory\":[");
+    }
+
+    /**
+     * Encodes one chunk of a streamed inventory array; {@code first} omits the leading comma.
+     */
+    static Buffer encodeStreamChunk(List<InventoryItem> items, boolean first) {
+        Buffer target = Buffer.buffer(items.size() * ESTIMATED_ITEM_SIZE);
+        try (JsonGenerator generator = generator(target)) {
+            for (int i = 0; i < items.size(); i++) {
+                if (i > 0 || !first) {
+                    generator.writeRaw(',');
+                }
+                writeItem(generator, target, items.get(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return target;
+    }
+
+    static Buffer encodeStreamEnd() {
+        return Buffer.buffer("]}");
+    }
+
+    private static void writeItem(JsonGenerator generator, Buffer target, InventoryItem item) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ITEM_NAME);
+        generator.writeString(item.itemName());
+        generator.writeFieldName(ITEM_TYPE);
+        generator.writeString(item.itemType());
+        generator.writeFieldName(QUANTITY);
+        generator.writeNumber(item.quantity());
+        generator.writeFieldName(PROPERTIES);
+        // An empty raw value writes just the separator; the stored bytes then go in directly
+        generator.writeRawValue("");
+        generator.flush();
+        target.appendBytes(item.properties());
+        generator.writeEndObject();
+    }
+
+    private static JsonGenerator generator(Buffer target) throws IOException {
+        return JSON_FACTORY.createGenerator(new OutputStream() {
+            @Override
+            public void write(int b) {
+                target.appendByte((byte) b);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                target.appendBytes(bytes, offset, length);
+            }
+        });
+    }
+}
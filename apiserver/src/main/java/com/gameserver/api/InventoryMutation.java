@@ -0,0 +1,49 @@
+package com.gameserver.api;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * A queued change to one user's inventory. {@code itemType} and {@code properties}
+ * (JSON object text) are optional for updates; null leaves the stored value unchanged.
+ */
+public record InventoryMutation(Kind kind, int userId, String itemName, String itemType, int quantity,
+                                String properties) {
+
+    public enum Kind {
+        GRANT,
+        CONSUME,
+        UPDATE
+    }
+
+    public static InventoryMutation grant(int userId, String itemName, String itemType, int quantity, String properties) {
+        return new InventoryMutation(Kind.GRANT, userId, itemName, itemType, quantity, properties);
+    }
+
+    public static InventoryMutation consume(int userId, String itemName, int quantity) {
+        return new InventoryMutation(Kind.CONSUME, userId, itemName, null, quantity, null);
+    }
+
+    public static InventoryMutation update(int userId, String itemName, String itemType, String properties) {
+        return new InventoryMutation(Kind.UPDATE, userId, itemName, itemType, 0, properties);
+    }
+
+    /**
+     * The change as pushed to the user's subscribers, with the request body's field names;
+     * {@code quantity} is the amount granted or consumed.
+     */
+    public JsonObject toJson() {
+        JsonObject json = new JsonObject()
+            .put("kind", kind.name().toLowerCase())
+            .put("item_name", itemName);
+        if (itemType != null) {
+            json.put("item_type", itemType);
+        }
+        if (kind != Kind.UPDATE) {
+            json.put("quantity", quantity);
+        }
+        if (properties != null) {
+            json.put("properties", new JsonObject(properties));
+        }
+        return json;
+    }
+}
@@ -0,0 +1,19 @@
+package com.gameserver.api;
+
+/**
+ * An inventory change that does not apply to the current rows, such as consuming more
+ * than the stack holds. Carries the HTTP status handlers respond with.
+ */
+public class InventoryMutationException extends RuntimeException {
+
+    private final int statusCode;
+
+    public InventoryMutationException(int statusCode, String message) {
+        super(message, null, false, false);
+        this.statusCode = statusCode;
+    }
+
+    public int statusCode() {
+        return statusCode;
+    }
+}
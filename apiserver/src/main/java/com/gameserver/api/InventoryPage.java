@@ -0,0 +1,36 @@
+package com.gameserver.api;
+
+import java.util.List;
+
+/**
+ * One keyset page of a user's inventory. {@code next} is the key of the last item,
+ * to be passed back as {@code after}, or null when there are no more items.
+ */
+public record InventoryPage(List<InventoryItem> items, Key next) {
+
+    /**
+     * Position in the (item_name, id) ordering, written as {@code item_name,id}.
+     */
+    public record Key(String itemName, int id) {
+
+        // Sorts before every row: ids start at 1
+        public static final Key START = new Key("", 0);
+
+        public static Key parse(String value) {
+            int comma = value.lastIndexOf(',');
+            if (comma < 0) {
+                throw new IllegalArgumentException("Expected item_name,id");
+            }
+            try {
+                return new Key(value.substring(0, comma), Integer.parseInt(value.substring(comma + 1)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid id in " + value);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return itemName + "," + id;
+        }
+    }
+}
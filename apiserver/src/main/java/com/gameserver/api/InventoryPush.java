@@ -0,0 +1,104 @@
+package com.gameserver.api;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WebSocket subscriptions to inventory changes, shared by all verticle instances. Each
+ * connection listens on its user's event bus address (see
+ * {@link DatabaseService#inventoryChangesAddress(int)}) and forwards the deltas published
+ * there as text frames, so the same user may be connected any number of times.
+ *
+ * <p>Outbound data per connection is bounded. While a connection's write queue is full its
+ * deltas are dropped; once the queue drains it gets a single {@code resync} message with
+ * the current version instead, telling the client to reload its inventory.
+ */
+public class InventoryPush {
+
+    public static final int DEFAULT_MAX_QUEUED_BYTES = 65_536;
+
+    private final int maxQueuedBytes;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+
+    public InventoryPush(JsonObject config) {
+        this.maxQueuedBytes = config.getInteger("inventory.push.maxQueuedBytes", DEFAULT_MAX_QUEUED_BYTES);
+    }
+
+    /**
+     * Upgrades an authenticated request to a WebSocket subscribed to the user's inventory
+     * changes. The first message is {@code {"type":"subscribed","version":..}}; the socket is
+     * closed when the access token expires.
+     */
+    void subscribe(RoutingContext context, DatabaseService databaseService, JwtPrincipal principal) {
+        context.request().toWebSocket()
+            .onSuccess(webSocket -> open(context.vertx(), webSocket, databaseService, principal))
+            .onFailure(error -> {
+                if (!context.response().ended()) {
+                    context.response()
+                        .setStatusCode(400)
+                        .putHeader("content-type", "application/json")
+                        .end(new JsonObject().put("error", "WebSocket upgrade required").encode());
+                }
+            });
+    }
+
+    private void open(Vertx vertx, ServerWebSocket webSocket, DatabaseService databaseService, JwtPrincipal principal) {
+        int userId = principal.userId();
+        webSocket.setWriteQueueMaxSize(maxQueuedBytes);
+        connections.incrementAndGet();
+
+        // Only touched on this connection's event loop
+        boolean[] resyncPending = {false};
+        MessageConsumer<String> consumer = vertx.eventBus().localConsumer(
+            databaseService.inventoryChangesAddress(userId), message -> {
+                if (resyncPending[0]) {
+                    dropped.increment();
+                } else if (webSocket.writeQueueFull()) {
+                    dropped.increment();
+                    resyncPending[0] = true;
+                    webSocket.drainHandler(v -> {
+                        webSocket.drainHandler(null);
+                        resyncPending[0] = false;
+                        resyncs.increment();
+                        webSocket.writeTextMessage(versionMessage("resync", databaseService.getInventoryVersion(userId)));
+                    });
+                } else {
+                    delivered.increment();
+                    webSocket.writeTextMessage(message.body());
+                }
+            });
+
+        long expiryTimer = vertx.setTimer(Math.max(1, principal.exp() * 1000 - System.currentTimeMillis()),
+            id -> webSocket.close((short) 1008, "Token expired"));
+        webSocket.closeHandler(v -> {
+            consumer.unregister();
+            vertx.cancelTimer(expiryTimer);
+            connections.decrementAndGet();
+        });
+
+        // Sent once the consumer is registered, so no change after this version is missed
+        consumer.completionHandler(ar ->
+            webSocket.writeTextMessage(versionMessage("subscribed", databaseService.getInventoryVersion(userId))));
+    }
+
+    private static String versionMessage(String type, long version) {
+        return new JsonObject().put("type", type).put("version", version).encode();
+    }
+
+    public JsonObject getStats() {
+        return new JsonObject()
+            .put("connections", connections.get())
+            .put("delivered", delivered.sum())
+            .put("dropped", dropped.sum())
+            .put("resyncs", resyncs.sum());
+    }
+}
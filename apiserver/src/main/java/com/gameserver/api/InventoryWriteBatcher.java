@@ -0,0 +1,358 @@
+package com.gameserver.api;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.JsonObject;
+import org.h2.api.ErrorCode;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind queue for inventory mutations with group commit. Mutations collect for up
+ * to the batch window (or until the batch is full) and are committed together in one JDBC
+ * transaction; each caller's future completes only after that commit. Batches run one at
+ * a time on a single writer thread and mutations keep their arrival order, so the changes
+ * of any one user are applied in the order they were submitted.
+ */
+class InventoryWriteBatcher {
+
+    // A NULL parameter with FORMAT JSON becomes JSON null, hence the NULLIF before COALESCE
+    static final String GRANT_SQL = """
+            MERGE INTO inventory t
+            USING (VALUES (CAST(? AS INT), CAST(? AS VARCHAR(100)))) AS s(user_id, item_name)
+            ON t.user_id = s.user_id AND t.item_name = s.item_name
+            WHEN MATCHED THEN UPDATE SET quantity = t.quantity + ?
+            WHEN NOT MATCHED THEN INSERT (user_id, item_name, item_type, quantity, properties)
+                VALUES (s.user_id, s.item_name, ?, ?, COALESCE(NULLIF(? FORMAT JSON, JSON 'null'), JSON '{}'))
+        """;
+    static final String CONSUME_SQL =
+        "UPDATE inventory SET quantity = quantity - ? WHERE user_id = ? AND item_name = ? AND quantity >= ?";
+    static final String DELETE_EMPTY_SQL =
+        "DELETE FROM inventory WHERE user_id = ? AND item_name = ? AND quantity <= 0";
+    static final String UPDATE_SQL = """
+            UPDATE inventory SET item_type = COALESCE(?, item_type), properties = COALESCE(NULLIF(? FORMAT JSON, JSON 'null'), properties)
+            WHERE user_id = ? AND item_name = ?
+        """;
+
+    private record PendingWrite(InventoryMutation mutation, Context context, Promise<Void> promise) {
+    }
+
+    private final Vertx vertx;
+    private final DataSource dataSource;
+    private final Consumer<List<InventoryMutation>> onCommitted;
+    private final long windowMs;
+    private final int maxBatchSize;
+    private final int maxQueueSize;
+    private final WorkerExecutor writer;
+
+    private final ArrayDeque<PendingWrite> queue = new ArrayDeque<>();
+    private boolean flushScheduled;
+    private long windowTimer = -1;
+    private boolean closing;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    InventoryWriteBatcher(Vertx vertx, DataSource dataSource, String name, long windowMs, int maxBatchSize,
+                          int maxQueueSize, Consumer<List<InventoryMutation>> onCommitted) {
+        this.vertx = vertx;
+        this.dataSource = dataSource;
+        this.onCommitted = onCommitted;
+        this.windowMs = windowMs;
+        this.maxBatchSize = maxBatchSize;
+        this.maxQueueSize = maxQueueSize;
+        // One thread: batches commit strictly one after another
+        this.writer = vertx.createSharedWorkerExecutor("inventory-writer-" + name, 1);
+    }
+
+    Future<Void> submit(InventoryMutation mutation) {
+        Context context = vertx.getOrCreateContext();
+        Promise<Void> promise = Promise.promise();
+        synchronized (this) {
+            if (closing) {
+                return Future.failedFuture(new ServiceBusyException("Inventory writer is shutting down"));
+            }
+            if (queue.size() >= maxQueueSize) {
+                rejected.increment();
+                return Future.failedFuture(new ServiceBusyException("Inventory write queue is full"));
+            }
+            queue.add(new PendingWrite(mutation, context, promise));
+            if (queue.size() >= maxBatchSize || windowMs <= 0) {
+                scheduleFlush();
+            } else if (!flushScheduled) {
+                startWindow();
+            }
+        }
+        return promise.future();
+    }
+
+    // Caller holds the lock
+    private void startWindow() {
+        if (windowTimer >= 0) {
+            return;
+        }
+        windowTimer = vertx.setTimer(Math.max(1, windowMs), id -> {
+            synchronized (this) {
+                windowTimer = -1;
+                scheduleFlush();
+            }
+        });
+    }
+
+    // Caller holds the lock
+    private void scheduleFlush() {
+        if (flushScheduled || closing) {
+            return;
+        }
+        flushScheduled = true;
+        if (windowTimer >= 0) {
+            vertx.cancelTimer(windowTimer);
+            windowTimer = -1;
+        }
+        writer.executeBlocking(promise -> {
+            flush();
+            promise.complete();
+        }, true);
+    }
+
+    private void flush() {
+        List<PendingWrite> batch;
+        synchronized (this) {
+            // Drained when the writer thread is free, so writes that arrived while the
+            // previous batch was committing join this one
+            batch = new ArrayList<>(Math.min(queue.size(), maxBatchSize));
+            while (batch.size() < maxBatchSize && !queue.isEmpty()) {
+                batch.add(queue.poll());
+            }
+            flushScheduled = false;
+            // While closing, close() drains the rest itself
+            if (!closing && queue.size() >= maxBatchSize) {
+                scheduleFlush();
+            } else if (!closing && !queue.isEmpty()) {
+                startWindow();
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Throwable[] results = new Throwable[batch.size()];
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                commitBatch(connection, batch, results);
+            } catch (SQLException e) {
+                // One bad row fails the whole JDBC batch; redo the writes one by one so only
+                // the offending callers see an error
+                connection.rollback();
+                commitIndividually(connection, batch, results);
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = e;
+            }
+        }
+        batches.increment();
+
+        List<InventoryMutation> applied = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (results[i] == null) {
+                applied.add(batch.get(i).mutation());
+            }
+        }
+        if (!applied.isEmpty()) {
+            onCommitted.accept(applied);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            Throwable error = results[i];
+            if (error == null) {
+                committed.increment();
+                write.context().runOnContext(v -> write.promise().complete());
+            } else {
+                failed.increment();
+                write.context().runOnContext(v -> write.promise().fail(error));
+            }
+        }
+    }
+
+    private void commitBatch(Connection connection, List<PendingWrite> batch, Throwable[] results) throws SQLException {
+        connection.setAutoCommit(false);
+        // Consecutive writes of the same kind share one executeBatch; runs execute in order
+        int start = 0;
+        while (start < batch.size()) {
+            InventoryMutation.Kind kind = batch.get(start).mutation().kind();
+            int end = start + 1;
+            while (end < batch.size() && batch.get(end).mutation().kind() == kind) {
+                end++;
+            }
+            executeRun(connection, batch.subList(start, end), results, start);
+            start = end;
+        }
+        connection.commit();
+    }
+
+    private void executeRun(Connection connection, List<PendingWrite> run, Throwable[] results, int offset)
+            throws SQLException {
+        InventoryMutation.Kind kind = run.get(0).mutation().kind();
+        switch (kind) {
+            case GRANT -> {
+                try (PreparedStatement statement = connection.prepareStatement(GRANT_SQL)) {
+                    for (PendingWrite write : run) {
+                        bindGrant(statement, write.mutation());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+            case CONSUME -> {
+                int[] counts;
+                try (PreparedStatement statement = connection.prepareStatement(CONSUME_SQL)) {
+                    for (PendingWrite write : run) {
+                        bindConsume(statement, write.mutation());
+                        statement.addBatch();
+                    }
+                    counts = statement.executeBatch();
+                }
+                try (PreparedStatement statement = connection.prepareStatement(DELETE_EMPTY_SQL)) {
+                    for (PendingWrite write : run) {
+                        statement.setInt(1, write.mutation().userId());
+                        statement.setString(2, write.mutation().itemName());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        results[offset + i] = insufficientQuantity();
+                    }
+                }
+            }
+            case UPDATE -> {
+                int[] counts;
+                try (PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+                    for (PendingWrite write : run) {
+                        bindUpdate(statement, write.mutation());
+                        statement.addBatch();
+                    }
+                    counts = statement.executeBatch();
+                }
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        results[offset + i] = itemNotFound();
+                    }
+                }
+            }
+        }
+    }
+
+    private void commitIndividually(Connection connection, List<PendingWrite> batch, Throwable[] results)
+            throws SQLException {
+        for (int i = 0; i < batch.size(); i++) {
+            results[i] = null;
+            try {
+                executeRun(connection, batch.subList(i, i + 1), results, i);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                results[i] = toMutationError(e);
+            }
+        }
+    }
+
+    private static void bindGrant(PreparedStatement statement, InventoryMutation mutation) throws SQLException {
+        statement.setInt(1, mutation.userId());
+        statement.setString(2, mutation.itemName());
+        statement.setInt(3, mutation.quantity());
+        statement.setString(4, mutation.itemType());
+        statement.setInt(5, mutation.quantity());
+        statement.setString(6, mutation.properties());
+    }
+
+    private static void bindConsume(PreparedStatement statement, InventoryMutation mutation) throws SQLException {
+        statement.setInt(1, mutation.quantity());
+        statement.setInt(2, mutation.userId());
+        statement.setString(3, mutation.itemName());
+        statement.setInt(4, mutation.quantity());
+    }
+
+    private static void bindUpdate(PreparedStatement statement, InventoryMutation mutation) throws SQLException {
+        statement.setString(1, mutation.itemType());
+        statement.setString(2, mutation.properties());
+        statement.setInt(3, mutation.userId());
+        statement.setString(4, mutation.itemName());
+    }
+
+    // Failures the caller caused become client errors; anything else stays a server error
+    private static Throwable toMutationError(SQLException e) {
+        if (e.getErrorCode() == ErrorCode.REFERENTIAL_INTEGRITY_VIOLATED_PARENT_MISSING_1) {
+            return new InventoryMutationException(404, "User not found");
+        }
+        // Stacking past the INT column's range
+        if (e.getErrorCode() == ErrorCode.NUMERIC_VALUE_OUT_OF_RANGE_1) {
+            return new InventoryMutationException(409, "Quantity would exceed " + Integer.MAX_VALUE);
+        }
+        return e;
+    }
+
+    private static InventoryMutationException insufficientQuantity() {
+        return new InventoryMutationException(409, "Insufficient quantity");
+    }
+
+    private static InventoryMutationException itemNotFound() {
+        return new InventoryMutationException(404, "Item not found");
+    }
+
+    /**
+     * Commits whatever is still queued, then stops the writer thread.
+     */
+    Future<Void> close() {
+        synchronized (this) {
+            closing = true;
+            if (windowTimer >= 0) {
+                vertx.cancelTimer(windowTimer);
+                windowTimer = -1;
+            }
+        }
+        // Runs after any batch already scheduled on the writer thread
+        return writer.<Void>executeBlocking(promise -> {
+            while (true) {
+                synchronized (this) {
+                    if (queue.isEmpty()) {
+                        break;
+                    }
+                }
+                flush();
+            }
+            promise.complete();
+        }, true).eventually(v -> writer.close());
+    }
+
+    JsonObject stats() {
+        int queued;
+        synchronized (this) {
+            queued = queue.size();
+        }
+        return new JsonObject()
+            .put("queued", queued)
+            .put("batches", batches.sum())
+            .put("committed", committed.sum())
+            .put("failed", failed.sum())
+            .put("rejected", rejected.sum());
+    }
+}
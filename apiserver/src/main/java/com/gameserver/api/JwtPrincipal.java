@@ -0,0 +1,7 @@
+package com.gameserver.api;
+
+/**
+ * Claims of a verified access token, stored in the RoutingContext by the auth handler.
+ */
+public record JwtPrincipal(int userId, String username, long exp) {
+}
@@ -8,28 +8,61 @@ import io.vertx.ext.auth.AuthProvider;
 import io.vertx.ext.auth.jwt.JWTAuth;
 import io.vertx.ext.auth.jwt.JWTAuthOptions;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.util.Base64;
+import java.util.concurrent.atomic.LongAdder;
 
 public class JwtService {
     
     private final JWTAuth jwtAuth;
+    private final VerifiedTokenCache tokenCache;
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder failed = new LongAdder();
     private static final String SECRET_KEY = "gameserver-secret-key-2024";
     private static final int TOKEN_EXPIRY_HOURS = 24;
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
+    // Mac is not thread-safe but expensive to create, so keep one initialized instance per thread
+    private static final ThreadLocal<Mac> HMAC = ThreadLocal.withInitial(() -> {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    });
+    
+    public static final int DEFAULT_TOKEN_CACHE_SIZE = 10_000;
     
     public JwtService(Vertx vertx) {
-        JWTAuthOptions config = new JWTAuthOptions()
+        this(vertx, new JsonObject());
+    }
+    
+    public JwtService(Vertx vertx, JsonObject config) {
+        int cacheSize = config.getInteger("jwt.cache.maxSize", DEFAULT_TOKEN_CACHE_SIZE);
+        this.tokenCache = cacheSize > 0 ? new VerifiedTokenCache(cacheSize) : null;
+        
+        JWTAuthOptions authOptions = new JWTAuthOptions()
             .addJwk(new JsonObject()
                 .put("kty", "oct")
                 .put("k", Base64.getUrlEncoder().withoutPadding()
                     .encodeToString(SECRET_KEY.getBytes(StandardCharsets.UTF_8)))
                 .put("alg", "HS256"));
         
-        this.jwtAuth = JWTAuth.create(vertx, config);
+        this.jwtAuth = JWTAuth.create(vertx, authOptions);
     }
     
     public String generateToken(int userId, String username) {
@@ -63,10 +96,7 @@ public class JwtService {
             
             String data = encodedHeader + "." + encodedPayload;
             
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKeySpec = new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            mac.init(secretKeySpec);
-            byte[] signature = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+            byte[] signature = HMAC.get().doFinal(data.getBytes(StandardCharsets.UTF_8));
             String encodedSignature = Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
             
             return data + "." + encodedSignature;
@@ -80,51 +110,129 @@ public class JwtService {
             return Future.failedFuture("Token is required");
         }
         
-        // Remove Bearer prefix if present
-        if (token.startsWith("Bearer ")) {
-            token = token.substring(7);
+        try {
+            verify(token);
+            // The authentication handler reads the principal from verify() directly
+            return Future.succeededFuture(null);
+        } catch (JwtVerificationException e) {
+            return Future.failedFuture(e.getMessage());
         }
-        
+    }
+    
+    /**
+     * Verifies signature and expiry in a single pass over the token and returns its claims.
+     *
+     * @throws JwtVerificationException if the token is malformed, forged or expired
+     */
+    public JwtPrincipal verify(String token) {
         try {
-            // Manual validation since Vert.x JWT auth might have issues
-            JsonObject claims = extractClaims(token);
-            
-            // Check if token is expired
-            if (isTokenExpired(token)) {
-                return Future.failedFuture("Token expired");
-            }
-            
-            // Verify signature manually
-            if (isValidSignature(token)) {
-                // Return a simple successful future with null user for now
-                // The authentication handler will extract user info from the token directly
-                return Future.succeededFuture(null);
-            } else {
-                return Future.failedFuture("Invalid token signature");
-            }
-        } catch (Exception e) {
-            return Future.failedFuture("Invalid token: " + e.getMessage());
+            JwtPrincipal principal = verifyToken(token);
+            verified.increment();
+            return principal;
+        } catch (JwtVerificationException e) {
+            failed.increment();
+            throw e;
         }
     }
     
-    private boolean isValidSignature(String token) {
+    private JwtPrincipal verifyToken(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new JwtVerificationException("Token is required");
+        }
+        if (token.startsWith(BEARER_PREFIX)) {
+            token = token.substring(BEARER_PREFIX.length());
+        }
+        
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = headerEnd < 0 ? -1 : token.indexOf('.', headerEnd + 1);
+        if (payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) {
+            throw new JwtVerificationException("Invalid token: malformed JWT");
+        }
+        
+        long now = Instant.now().getEpochSecond();
+        String encodedSignature = token.substring(payloadEnd + 1);
+        if (tokenCache != null) {
+            JwtPrincipal cached = tokenCache.get(encodedSignature, token, now);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        
+        byte[] tokenBytes = token.getBytes(StandardCharsets.US_ASCII);
+        Mac mac = HMAC.get();
+        mac.update(tokenBytes, 0, payloadEnd);
+        byte[] expectedSignature = mac.doFinal();
+        
+        byte[] signature;
+        byte[] payload;
         try {
-            String[] parts = token.split("\\.");
-            if (parts.length != 3) {
-                return false;
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            signature = decoder.decode(encodedSignature);
+            payload = decoder.decode(token.substring(headerEnd + 1, payloadEnd));
+        } catch (IllegalArgumentException e) {
+            throw new JwtVerificationException("Invalid token: bad encoding");
+        }
+        
+        if (!MessageDigest.isEqual(expectedSignature, signature)) {
+            throw new JwtVerificationException("Invalid token signature");
+        }
+        
+        JwtPrincipal principal = parsePrincipal(payload);
+        if (now > principal.exp()) {
+            throw new JwtVerificationException("Token expired");
+        }
+        if (tokenCache != null) {
+            tokenCache.put(encodedSignature, token, principal, now);
+        }
+        return principal;
+    }
+    
+    /**
+     * Counts of tokens that passed and failed {@link #verify}, including cache hits.
+     */
+    public JsonObject getVerifyStats() {
+        return new JsonObject()
+            .put("verified", verified.sum())
+            .put("failed", failed.sum());
+    }
+    
+    /**
+     * Hit/miss/eviction counters of the verified-token cache, or an empty object when disabled.
+     */
+    public JsonObject getTokenCacheStats() {
+        return tokenCache != null ? tokenCache.stats() : new JsonObject();
+    }
+    
+    private static JwtPrincipal parsePrincipal(byte[] payload) {
+        Integer userId = null;
+        String username = null;
+        Long exp = null;
+        
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JwtVerificationException("Invalid token: payload is not an object");
             }
-            
-            String data = parts[0] + "." + parts[1];
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKeySpec = new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            mac.init(secretKeySpec);
-            byte[] signature = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            String expectedSignature = Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
-            
-            return expectedSignature.equals(parts[2]);
-        } catch (Exception e) {
-            return false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "userId" -> userId = value == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : null;
+                    case "username" -> username = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    case "exp" -> exp = value == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : null;
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new JwtVerificationException("Invalid token: unreadable payload");
+        }
+        
+        if (exp == null) {
+            throw new JwtVerificationException("Token expired");
+        }
+        if (userId == null) {
+            throw new JwtVerificationException("Invalid token: missing userId");
         }
+        return new JwtPrincipal(userId, username, exp);
     }
     
     public JsonObject extractClaims(String token) {
@@ -134,13 +242,14 @@ public class JwtService {
             }
             
             // Decode the JWT token manually to extract claims
-            String[] parts = token.split("\\.");
-            if (parts.length != 3) {
+            int headerEnd = token.indexOf('.');
+            int payloadEnd = headerEnd < 0 ? -1 : token.indexOf('.', headerEnd + 1);
+            if (payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) {
                 throw new IllegalArgumentException("Invalid JWT token format");
             }
             
             // Decode the payload (second part)
-            byte[] payloadBytes = Base64.getUrlDecoder().decode(parts[1]);
+            byte[] payloadBytes = Base64.getUrlDecoder().decode(token.substring(headerEnd + 1, payloadEnd));
             String payloadJson = new String(payloadBytes, StandardCharsets.UTF_8);
             return new JsonObject(payloadJson);
         } catch (Exception e) {
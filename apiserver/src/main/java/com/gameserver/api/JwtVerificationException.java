@@ -0,0 +1,12 @@
+package com.gameserver.api;
+
+/**
+ * Raised when a token fails verification. Rejected tokens are common under attack,
+ * so no stack trace is captured.
+ */
+public class JwtVerificationException extends RuntimeException {
+
+    public JwtVerificationException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,58 @@
+package com.gameserver.api;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Login attempt limits per remote address and per username, shared by all verticle
+ * instances. Attempts over either limit are rejected before any database or hashing work.
+ */
+public class LoginRateLimiter {
+
+    public static final int DEFAULT_USERNAME_BURST = 10;
+    public static final double DEFAULT_USERNAME_PER_MINUTE = 10;
+    public static final int DEFAULT_ADDRESS_BURST = 50;
+    public static final double DEFAULT_ADDRESS_PER_MINUTE = 300;
+    public static final int DEFAULT_MAX_KEYS = 100_000;
+
+    private final boolean enabled;
+    private final TokenBucketLimiter byUsername;
+    private final TokenBucketLimiter byAddress;
+
+    public LoginRateLimiter(JsonObject config) {
+        this.enabled = config.getBoolean("login.rateLimit.enabled", true);
+        int maxKeys = config.getInteger("login.rateLimit.maxKeys", DEFAULT_MAX_KEYS);
+        this.byUsername = new TokenBucketLimiter(
+            config.getInteger("login.rateLimit.username.burst", DEFAULT_USERNAME_BURST),
+            config.getDouble("login.rateLimit.username.perMinute", DEFAULT_USERNAME_PER_MINUTE) / 60.0,
+            maxKeys);
+        this.byAddress = new TokenBucketLimiter(
+            config.getInteger("login.rateLimit.address.burst", DEFAULT_ADDRESS_BURST),
+            config.getDouble("login.rateLimit.address.perMinute", DEFAULT_ADDRESS_PER_MINUTE) / 60.0,
+            maxKeys);
+    }
+
+    /**
+     * Returns 0 if an attempt from this address may proceed, otherwise seconds to wait.
+     */
+    public long checkAddress(String address) {
+        return enabled ? toRetrySeconds(byAddress.tryAcquire(address)) : 0;
+    }
+
+    /**
+     * Returns 0 if an attempt for this username may proceed, otherwise seconds to wait.
+     */
+    public long checkUsername(String username) {
+        return enabled ? toRetrySeconds(byUsername.tryAcquire(username)) : 0;
+    }
+
+    private static long toRetrySeconds(long waitNanos) {
+        return waitNanos == 0 ? 0 : Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    public JsonObject getStats() {
+        return new JsonObject()
+            .put("enabled", enabled)
+            .put("username", byUsername.stats())
+            .put("address", byAddress.stats());
+    }
+}
@@ -0,0 +1,98 @@
+package com.gameserver.api;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * PBKDF2-HMAC-SHA256 password hashes stored as {@code pbkdf2_sha256$iterations$salt$hash}
+ * (Base64 salt and hash). Hashing and verifying are deliberately slow and blocking; call
+ * them from a worker thread, never from an event loop.
+ */
+class PasswordHasher {
+
+    static final String ALGORITHM = "pbkdf2_sha256";
+    // OWASP's 2021 recommendation for PBKDF2-HMAC-SHA256
+    static final int DEFAULT_ITERATIONS = 310_000;
+
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+    private final int iterations;
+    // Verified when the username does not exist, so both cases cost the same
+    private final String dummyHash;
+
+    PasswordHasher(int iterations) {
+        this.iterations = iterations;
+        this.dummyHash = format(iterations, new byte[SALT_BYTES], new byte[HASH_BYTES]);
+    }
+
+    String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return format(iterations, salt, derive(password, salt, iterations));
+    }
+
+    /**
+     * Checks a password against a stored value. Values without the hash prefix are
+     * legacy plaintext passwords and are compared in constant time.
+     */
+    boolean verify(String password, String stored) {
+        if (!stored.startsWith(ALGORITHM + "$")) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = DECODER.decode(parts[2]);
+            byte[] expected = DECODER.decode(parts[3]);
+            return MessageDigest.isEqual(expected, derive(password, salt, storedIterations));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * True for plaintext values and hashes weaker than the configured iteration count.
+     */
+    boolean needsRehash(String stored) {
+        if (!stored.startsWith(ALGORITHM + "$")) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    String dummyHash() {
+        return dummyHash;
+    }
+
+    private static String format(int iterations, byte[] salt, byte[] hash) {
+        return ALGORITHM + "$" + iterations + "$" + ENCODER.encodeToString(salt) + "$" + ENCODER.encodeToString(hash);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BYTES * 8);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2WithHmacSHA256 is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.gameserver.api;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Builds a scrape in the Prometheus text exposition format (version 0.0.4).
+ */
+class PrometheusTextWriter {
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    // Histogram buckets are exported per power of two, from 64 microseconds to about 67 seconds
+    private static final int FIRST_BUCKET_EXPONENT = 6;
+
+    private final StringBuilder out = new StringBuilder(8192);
+
+    PrometheusTextWriter family(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    PrometheusTextWriter sample(String name, String labels, long value) {
+        appendName(name, labels).append(value).append('\n');
+        return this;
+    }
+
+    PrometheusTextWriter sample(String name, String labels, double value) {
+        appendName(name, labels).append(format(value)).append('\n');
+        return this;
+    }
+
+    /**
+     * Writes the samples of one histogram; call {@link #family} with type "histogram" first.
+     */
+    PrometheusTextWriter histogram(String name, String labels, LatencyHistogram.Snapshot snapshot) {
+        String prefix = labels == null ? "" : labels + ",";
+        for (int exponent = FIRST_BUCKET_EXPONENT; exponent <= LatencyHistogram.MAX_EXPONENT; exponent++) {
+            long micros = 1L << exponent;
+            appendName(name + "_bucket", prefix + "le=\"" + format(micros / 1e6) + "\"")
+                .append(snapshot.countBelow(micros)).append('\n');
+        }
+        appendName(name + "_bucket", prefix + "le=\"+Inf\"").append(snapshot.count()).append('\n');
+        sample(name + "_sum", labels, snapshot.sumMicros() / 1e6);
+        return sample(name + "_count", labels, snapshot.count());
+    }
+
+    /**
+     * Exports every numeric field of a stats object as {@code prefix_field}. Fields named in
+     * {@code counters} are monotonic counters; the rest are gauges.
+     */
+    PrometheusTextWriter stats(String prefix, String help, JsonObject stats, String... counters) {
+        for (String field : stats.fieldNames()) {
+            if (!(stats.getValue(field) instanceof Number value)) {
+                continue;
+            }
+            String name = prefix + "_" + snakeCase(field);
+            boolean counter = false;
+            for (String c : counters) {
+                counter |= c.equals(field);
+            }
+            if (counter) {
+                family(name + "_total", "counter", help + " (" + field + ")").sample(name + "_total", null, value.longValue());
+            } else {
+                family(name, "gauge", help + " (" + field + ")").sample(name, null, value.doubleValue());
+            }
+        }
+        return this;
+    }
+
+    static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+
+    private StringBuilder appendName(String name, String labels) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        return out.append(' ');
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String snakeCase(String field) {
+        StringBuilder name = new StringBuilder(field.length() + 4);
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (Character.isUpperCase(c)) {
+                name.append('_').append(Character.toLowerCase(c));
+            } else {
+                name.append(c);
+            }
+        }
+        return name.toString();
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
@@ -0,0 +1,129 @@
+package com.gameserver.api;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.validation.BodyProcessorException;
+import io.vertx.json.schema.Draft;
+import io.vertx.json.schema.JsonSchema;
+import io.vertx.json.schema.JsonSchemaOptions;
+import io.vertx.json.schema.OutputUnit;
+import io.vertx.json.schema.SchemaRepository;
+import io.vertx.json.schema.Validator;
+import io.vertx.json.schema.common.dsl.NumberSchemaBuilder;
+import io.vertx.json.schema.common.dsl.ObjectSchemaBuilder;
+import io.vertx.json.schema.common.dsl.SchemaBuilder;
+
+import static io.vertx.json.schema.common.dsl.Keywords.maxLength;
+import static io.vertx.json.schema.common.dsl.Keywords.minItems;
+import static io.vertx.json.schema.common.dsl.Keywords.minLength;
+import static io.vertx.json.schema.common.dsl.Schemas.arraySchema;
+import static io.vertx.json.schema.common.dsl.Schemas.intSchema;
+import static io.vertx.json.schema.common.dsl.Schemas.objectSchema;
+import static io.vertx.json.schema.common.dsl.Schemas.stringSchema;
+
+/**
+ * JSON request bodies checked against schemas that are compiled once per router. A body
+ * that does not match fails the routing context with a {@link BodyProcessorException}
+ * before the route's handler runs, the same failures web-validation's ValidationHandler
+ * raises. Lengths follow the database columns.
+ */
+class RequestValidators {
+
+    static final int MAX_PASSWORD_LENGTH = 1024;
+
+    private static final String BODY_KEY = "validatedBody";
+    private static final String JSON_CONTENT_TYPE = "application/json";
+
+    final Handler<RoutingContext> login;
+    final Handler<RoutingContext> inventoryBatch;
+    final Handler<RoutingContext> grant;
+    final Handler<RoutingContext> consume;
+    final Handler<RoutingContext> update;
+
+    RequestValidators() {
+        JsonSchemaOptions options = new JsonSchemaOptions().setDraft(Draft.DRAFT7).setBaseUri("app://");
+        SchemaRepository repository = SchemaRepository.create(options);
+
+        login = jsonBody(repository, objectSchema()
+            .requiredProperty("username", stringSchema().with(minLength(1), maxLength(50)))
+            .requiredProperty("password", stringSchema().with(minLength(1), maxLength(MAX_PASSWORD_LENGTH))));
+        inventoryBatch = jsonBody(repository, objectSchema()
+            .requiredProperty("userIds", arraySchema().items(int32Schema()).with(minItems(1))));
+        grant = jsonBody(repository, itemSchema()
+            .requiredProperty("userId", positiveInt32Schema())
+            .requiredProperty("item_type", itemTypeSchema())
+            .optionalProperty("quantity", quantitySchema())
+            .optionalProperty("properties", objectSchema()));
+        consume = jsonBody(repository, itemSchema()
+            .optionalProperty("quantity", quantitySchema()));
+        update = jsonBody(repository, itemSchema()
+            .requiredProperty("userId", positiveInt32Schema())
+            .optionalProperty("item_type", itemTypeSchema())
+            .optionalProperty("properties", objectSchema()));
+    }
+
+    // A request without a body passes with none, which the route's handler reports itself
+    private static Handler<RoutingContext> jsonBody(SchemaRepository repository, ObjectSchemaBuilder schema) {
+        Validator validator = repository.validator(JsonSchema.of(schema.toJson()));
+        return context -> {
+            String contentType = context.request().getHeader(HttpHeaders.CONTENT_TYPE);
+            Buffer buffer = context.body().buffer();
+            if (contentType == null || buffer == null || buffer.length() == 0) {
+                context.next();
+                return;
+            }
+            if (!contentType.contains(JSON_CONTENT_TYPE)) {
+                context.fail(400, BodyProcessorException.createMissingMatchingBodyProcessor(contentType));
+                return;
+            }
+            Object body;
+            try {
+                body = Json.decodeValue(buffer);
+            } catch (DecodeException e) {
+                context.fail(400, BodyProcessorException.createParsingError(contentType, e));
+                return;
+            }
+            OutputUnit result = validator.validate(body);
+            if (!result.getValid()) {
+                context.fail(400, BodyProcessorException.createValidationError(contentType, result.toException(body)));
+                return;
+            }
+            context.put(BODY_KEY, body);
+            context.next();
+        };
+    }
+
+    private static ObjectSchemaBuilder itemSchema() {
+        return objectSchema().requiredProperty("item_name", stringSchema().with(minLength(1), maxLength(100)));
+    }
+
+    private static SchemaBuilder<?, ?> itemTypeSchema() {
+        return stringSchema().with(minLength(1), maxLength(50));
+    }
+
+    private static SchemaBuilder<?, ?> quantitySchema() {
+        return positiveInt32Schema();
+    }
+
+    private static SchemaBuilder<?, ?> positiveInt32Schema() {
+        return int32Schema().withKeyword("minimum", 1);
+    }
+
+    // Larger integers would be truncated when read back as an int
+    private static NumberSchemaBuilder int32Schema() {
+        return intSchema().withKeyword("minimum", Integer.MIN_VALUE).withKeyword("maximum", Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the body checked by the route's validator, or null when the request had none.
+     */
+    static JsonObject body(RoutingContext context) {
+        Object body = context.get(BODY_KEY);
+        return body instanceof JsonObject json ? json : null;
+    }
+}
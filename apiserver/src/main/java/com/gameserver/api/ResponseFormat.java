@@ -0,0 +1,88 @@
+package com.gameserver.api;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.MIMEHeader;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Body encodings of the inventory and login responses, chosen from the request's
+ * {@code Accept} header. Errors are always JSON.
+ */
+enum ResponseFormat {
+
+    JSON("application/json", null),
+    CBOR("application/cbor", BinaryWriter::cbor),
+    MESSAGE_PACK("application/msgpack", BinaryWriter::messagePack);
+
+    private final String contentType;
+    private final Function<Buffer, BinaryWriter> writer;
+
+    ResponseFormat(String contentType, Function<Buffer, BinaryWriter> writer) {
+        this.contentType = contentType;
+        this.writer = writer;
+    }
+
+    String contentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the most preferred acceptable format, or JSON when the client has no
+     * preference or accepts none of them.
+     */
+    static ResponseFormat negotiate(RoutingContext context) {
+        // Sorted by preference; JSON also covers wildcards. weight() parses the entry, and is
+        // checked directly since isPermitted() is inverted in this Vert.x version
+        for (MIMEHeader accepted : context.parsedHeaders().accept()) {
+            if (accepted.weight() <= 0) {
+                continue;
+            }
+            if (accepted.component().equals("*")) {
+                return JSON;
+            }
+            if (accepted.component().equals("application")) {
+                ResponseFormat format = switch (accepted.subComponent()) {
+                    case "*", "json" -> JSON;
+                    case "cbor" -> CBOR;
+                    case "msgpack", "x-msgpack", "vnd.msgpack" -> MESSAGE_PACK;
+                    default -> null;
+                };
+                if (format != null) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * Encodes the inventory into {@code target}, which may wrap pooled memory, and returns it.
+     */
+    Buffer inventory(Buffer target, int userId, List<InventoryItem> items) {
+        return writer == null
+            ? InventoryJsonWriter.write(target, userId, items)
+            : InventoryBinaryWriter.write(writer.apply(target), userId, items);
+    }
+
+    Buffer page(Buffer target, int userId, InventoryPage page) {
+        return writer == null
+            ? InventoryJsonWriter.writePage(target, userId, page)
+            : InventoryBinaryWriter.writePage(writer.apply(target), userId, page);
+    }
+
+    Buffer login(int userId, String username, String accessToken) {
+        if (writer == null) {
+            return new JsonObject()
+                .put("success", true)
+                .put("userId", userId)
+                .put("username", username)
+                .put("accessToken", accessToken)
+                .toBuffer();
+        }
+        return InventoryBinaryWriter.encodeLogin(writer, userId, username, accessToken);
+    }
+}
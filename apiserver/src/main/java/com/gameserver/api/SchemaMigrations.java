@@ -0,0 +1,136 @@
+package com.gameserver.api;
+
+import io.vertx.core.Future;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Tuple;
+
+import java.util.List;
+
+/**
+ * Ordered, versioned schema changes. Applied versions are recorded in schema_version and
+ * pending migrations run on startup. H2 commits DDL immediately, so a migration that fails
+ * partway keeps the statements that ran and is retried from the start on the next startup:
+ * every step must be safe to run again, using IF [NOT] EXISTS or a guard on the current
+ * schema. Never edit a released migration, append a new one instead.
+ */
+class SchemaMigrations {
+
+    /**
+     * A statement that only runs when {@code onlyIf}, a query returning one boolean, is true;
+     * without a guard it always runs.
+     */
+    record Step(String statement, String onlyIf) {
+    }
+
+    record Migration(int version, String description, List<Step> steps) {
+    }
+
+    private static final String PROPERTIES_IS_TEXT = columnExists("PROPERTIES") + " AND DATA_TYPE = 'CHARACTER VARYING'";
+    private static final String PROPERTIES_JSON_EXISTS = columnExists("PROPERTIES_JSON");
+
+    static final List<Migration> MIGRATIONS = List.of(
+        // Baseline; IF NOT EXISTS lets it adopt databases created before migrations existed
+        new Migration(1, "create users and inventory", List.of(
+            run("""
+                CREATE TABLE IF NOT EXISTS users (
+                    id INT AUTO_INCREMENT PRIMARY KEY,
+                    username VARCHAR(50) UNIQUE NOT NULL,
+                    password VARCHAR(255) NOT NULL,
+                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+            """),
+            run("""
+                CREATE TABLE IF NOT EXISTS inventory (
+                    id INT AUTO_INCREMENT PRIMARY KEY,
+                    user_id INT NOT NULL,
+                    item_name VARCHAR(100) NOT NULL,
+                    item_type VARCHAR(50) NOT NULL,
+                    quantity INT DEFAULT 1,
+                    properties VARCHAR(1000),
+                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    FOREIGN KEY (user_id) REFERENCES users(id)
+                )
+            """))),
+        // Serves WHERE user_id = ? ORDER BY item_name from the index without a sort
+        new Migration(2, "index inventory by user and item name", List.of(
+            run("CREATE INDEX IF NOT EXISTS idx_inventory_user_item ON inventory (user_id, item_name)"))),
+        // Repair malformed legacy properties once, then store them in a validated JSON column
+        // so reads can pass the bytes through without parsing. The copy steps only run while the
+        // legacy text column is there, and the rename while its replacement is not yet renamed
+        new Migration(3, "store inventory properties as JSON objects", List.of(
+            runIf(PROPERTIES_IS_TEXT,
+                "UPDATE inventory SET properties = '{}' WHERE properties IS NULL OR NOT (properties IS JSON OBJECT)"),
+            runIf(PROPERTIES_IS_TEXT,
+                "ALTER TABLE inventory ADD COLUMN IF NOT EXISTS properties_json JSON DEFAULT JSON '{}' NOT NULL"),
+            runIf(PROPERTIES_IS_TEXT, "UPDATE inventory SET properties_json = properties FORMAT JSON"),
+            runIf(PROPERTIES_IS_TEXT, "ALTER TABLE inventory DROP COLUMN IF EXISTS properties"),
+            runIf(PROPERTIES_JSON_EXISTS, "ALTER TABLE inventory ALTER COLUMN properties_json RENAME TO properties"),
+            run("ALTER TABLE inventory ADD CONSTRAINT IF NOT EXISTS chk_inventory_properties_object "
+                + "CHECK (properties IS JSON OBJECT)"))),
+        // Appending id makes (item_name, id) a unique, index-ordered keyset for pagination
+        new Migration(4, "extend inventory index with id for keyset pagination", List.of(
+            run("DROP INDEX IF EXISTS idx_inventory_user_item"),
+            run("CREATE INDEX idx_inventory_user_item ON inventory (user_id, item_name, id)")))
+    );
+
+    private static final String CREATE_VERSION_TABLE = """
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version INT PRIMARY KEY,
+                description VARCHAR(200) NOT NULL,
+                applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+        """;
+
+    private SchemaMigrations() {
+    }
+
+    private static Step run(String statement) {
+        return new Step(statement, null);
+    }
+
+    private static Step runIf(String onlyIf, String statement) {
+        return new Step(statement, onlyIf);
+    }
+
+    private static String columnExists(String column) {
+        return "SELECT COUNT(*) > 0 FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = CURRENT_SCHEMA"
+            + " AND TABLE_NAME = 'INVENTORY' AND COLUMN_NAME = '" + column + "'";
+    }
+
+    static Future<Integer> migrate(Pool pool) {
+        return pool.query(CREATE_VERSION_TABLE).execute()
+            .compose(v -> pool.query("SELECT COALESCE(MAX(version), 0) FROM schema_version").execute())
+            .compose(rows -> {
+                int current = rows.iterator().next().getInteger(0);
+                Future<Integer> chain = Future.succeededFuture(current);
+                for (Migration migration : MIGRATIONS) {
+                    if (migration.version() > current) {
+                        chain = chain.compose(v -> pool.withTransaction(connection -> apply(connection, migration)));
+                    }
+                }
+                return chain;
+            });
+    }
+
+    private static Future<Boolean> applies(SqlConnection connection, Step step) {
+        if (step.onlyIf() == null) {
+            return Future.succeededFuture(true);
+        }
+        return connection.query(step.onlyIf()).execute().map(rows -> rows.iterator().next().getBoolean(0));
+    }
+
+    private static Future<Integer> apply(SqlConnection connection, Migration migration) {
+        Future<Void> chain = Future.succeededFuture();
+        for (Step step : migration.steps()) {
+            chain = chain.compose(v -> applies(connection, step))
+                .compose(applies -> applies
+                    ? connection.query(step.statement()).execute().<Void>mapEmpty()
+                    : Future.<Void>succeededFuture());
+        }
+        return chain
+            .compose(v -> connection.preparedQuery("INSERT INTO schema_version (version, description) VALUES (?, ?)")
+                .execute(Tuple.of(migration.version(), migration.description())))
+            .map(v -> migration.version());
+    }
+}
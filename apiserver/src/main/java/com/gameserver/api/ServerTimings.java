@@ -0,0 +1,151 @@
+package com.gameserver.api;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per-stage timing of a sample of API requests. Their complete breakdown is kept in a
+ * fixed-size ring buffer of the most recent requests and, when enabled, also sent in a
+ * {@code Server-Timing} response header listing each stage's duration in milliseconds.
+ * The header reveals internal stages to any client, so it is off by default. Stages are
+ * measured with {@link System#nanoTime()}, so wall-clock adjustments do not skew them.
+ */
+public class ServerTimings {
+
+    public static final double DEFAULT_SAMPLE_RATE = 0.01;
+    public static final boolean DEFAULT_HEADER_ENABLED = false;
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+
+    private static final String CONTEXT_KEY = "serverTiming";
+    private static final int MAX_STAGES = 8;
+
+    /**
+     * Stage durations of one request. It is only touched from the request's event loop
+     * until it is published to the ring buffer.
+     */
+    static final class Breakdown {
+        private final String method;
+        private final String path;
+        private final long startMillis = System.currentTimeMillis();
+        private final long startNanos = System.nanoTime();
+        private final String[] stages = new String[MAX_STAGES];
+        private final long[] nanos = new long[MAX_STAGES];
+        private int size;
+        private int status;
+        private long totalNanos;
+
+        Breakdown(String method, String path) {
+            this.method = method;
+            this.path = path;
+        }
+
+        // Repeated stages, such as the chunks of a streamed response, are summed
+        void add(String stage, long durationNanos) {
+            for (int i = 0; i < size; i++) {
+                if (stages[i].equals(stage)) {
+                    nanos[i] += durationNanos;
+                    return;
+                }
+            }
+            if (size < MAX_STAGES) {
+                stages[size] = stage;
+                nanos[size++] = durationNanos;
+            }
+        }
+
+        String header() {
+            StringBuilder header = new StringBuilder(64);
+            for (int i = 0; i < size; i++) {
+                appendMetric(header, stages[i], nanos[i]).append(", ");
+            }
+            return appendMetric(header, "total", System.nanoTime() - startNanos).toString();
+        }
+
+        void finish(int status) {
+            this.status = status;
+            this.totalNanos = System.nanoTime() - startNanos;
+        }
+
+        JsonObject toJson() {
+            JsonObject stageMillis = new JsonObject();
+            for (int i = 0; i < size; i++) {
+                stageMillis.put(stages[i], toMillis(nanos[i]));
+            }
+            return new JsonObject()
+                .put("timestamp", startMillis)
+                .put("method", method)
+                .put("path", path)
+                .put("status", status)
+                .put("totalMs", toMillis(totalNanos))
+                .put("stages", stageMillis);
+        }
+
+        private static StringBuilder appendMetric(StringBuilder header, String name, long durationNanos) {
+            return header.append(name).append(";dur=").append(toMillis(durationNanos));
+        }
+
+        private static double toMillis(long nanos) {
+            return Math.round(nanos / 1_000.0) / 1_000.0;
+        }
+    }
+
+    private final double sampleRate;
+    private final boolean headerEnabled;
+    private final Breakdown[] ring;
+    private long written;
+
+    public ServerTimings(JsonObject config) {
+        this.sampleRate = config.getDouble("timing.sampleRate", DEFAULT_SAMPLE_RATE);
+        this.headerEnabled = config.getBoolean("timing.header.enabled", DEFAULT_HEADER_ENABLED);
+        this.ring = new Breakdown[Math.max(1, config.getInteger("timing.bufferSize", DEFAULT_BUFFER_SIZE))];
+    }
+
+    /**
+     * Route handler that starts timing a sampled request; register it ahead of the
+     * handlers whose stages are recorded.
+     */
+    public void start(RoutingContext context) {
+        if (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            Breakdown breakdown = new Breakdown(context.request().method().name(), context.request().path());
+            context.put(CONTEXT_KEY, breakdown);
+            if (headerEnabled) {
+                context.addHeadersEndHandler(v -> context.response().putHeader("Server-Timing", breakdown.header()));
+            }
+            context.addEndHandler(ar -> {
+                breakdown.finish(context.response().getStatusCode());
+                publish(breakdown);
+            });
+        }
+        context.next();
+    }
+
+    /**
+     * Records that {@code stage} ran from {@code startNanos} (a {@link System#nanoTime()}
+     * reading) until now. Does nothing when the request is not sampled.
+     */
+    static void record(RoutingContext context, String stage, long startNanos) {
+        Breakdown breakdown = context.get(CONTEXT_KEY);
+        if (breakdown != null) {
+            breakdown.add(stage, System.nanoTime() - startNanos);
+        }
+    }
+
+    private synchronized void publish(Breakdown breakdown) {
+        ring[(int) (written++ % ring.length)] = breakdown;
+    }
+
+    /**
+     * Returns up to {@code limit} of the most recent breakdowns, newest first.
+     */
+    public synchronized JsonArray recent(int limit) {
+        JsonArray recent = new JsonArray();
+        int count = (int) Math.min(Math.min(limit, written), ring.length);
+        for (int i = 1; i <= count; i++) {
+            recent.add(ring[(int) ((written - i) % ring.length)].toJson());
+        }
+        return recent;
+    }
+}
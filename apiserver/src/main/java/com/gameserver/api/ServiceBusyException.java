@@ -0,0 +1,12 @@
+package com.gameserver.api;
+
+/**
+ * Signals that a bounded resource (connection pool, worker queue) is saturated and the
+ * request was shed instead of queued. Handlers map it to 503 Service Unavailable.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException(String message) {
+        super(message, null, false, false);
+    }
+}
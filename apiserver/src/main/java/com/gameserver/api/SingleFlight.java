@@ -0,0 +1,82 @@
+package com.gameserver.api;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key, across all verticle instances: while a load
+ * is in flight, callers for the same key share its result instead of starting their own.
+ * A caller only joins a load that started at its version of the data or later, so a read
+ * that follows a write never gets rows loaded before it. Each caller's future completes on
+ * the caller's own context.
+ */
+class SingleFlight<K, V> {
+
+    private record Flight<V>(long version, Future<V> result) {
+    }
+
+    private final Map<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Returns the result of the in-flight load of {@code key} if it started at
+     * {@code version} or later, otherwise starts {@code loader}.
+     */
+    Future<V> load(K key, long version, Supplier<Future<V>> loader) {
+        Promise<V> promise = Promise.promise();
+        Flight<V> started = new Flight<>(version, promise.future());
+        Flight<V> flight = flights.compute(key,
+            (k, current) -> current != null && current.version() >= version ? current : started);
+        if (flight != started) {
+            coalesced.increment();
+            return onCallerContext(flight.result());
+        }
+
+        loads.increment();
+        Future<V> loading;
+        try {
+            loading = loader.get();
+        } catch (RuntimeException e) {
+            loading = Future.failedFuture(e);
+        }
+        // Removed before completing, so nobody joins a load whose result was already delivered
+        loading.onComplete(ar -> {
+            flights.remove(key, started);
+            promise.handle(ar);
+        });
+        return promise.future();
+    }
+
+    // A shared load completes on the context of whoever started it; hop back to this caller's
+    private static <V> Future<V> onCallerContext(Future<V> result) {
+        Context context = Vertx.currentContext();
+        if (context == null) {
+            return result;
+        }
+        Promise<V> promise = Promise.promise();
+        result.onComplete(ar -> {
+            if (Vertx.currentContext() == context) {
+                promise.handle(ar);
+            } else {
+                context.runOnContext(v -> promise.handle(ar));
+            }
+        });
+        return promise.future();
+    }
+
+    JsonObject stats() {
+        return new JsonObject()
+            .put("inFlight", flights.size())
+            .put("loads", loads.sum())
+            .put("coalesced", coalesced.sum());
+    }
+}
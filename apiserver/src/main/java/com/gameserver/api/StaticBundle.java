@@ -0,0 +1,184 @@
+package com.gameserver.api;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.ext.web.RoutingContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A directory of static files held in memory, each with a precomputed gzip variant and a
+ * strong ETag per variant. Bodies live in direct, unreleasable buffers that every response
+ * shares, so serving a file neither touches the file system nor copies its bytes.
+ */
+class StaticBundle {
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+        "html", "text/html; charset=utf-8",
+        "js", "text/javascript; charset=utf-8",
+        "css", "text/css; charset=utf-8",
+        "json", "application/json",
+        "svg", "image/svg+xml",
+        "png", "image/png",
+        "ico", "image/x-icon");
+
+    private record Variant(Buffer body, String etag, String contentLength) {
+    }
+
+    private record Asset(String contentType, String cacheControl, Variant identity, Variant gzip) {
+    }
+
+    private final Map<String, Asset> assets;
+    private final String indexPage;
+    private final boolean http2Compresses;
+
+    private StaticBundle(Map<String, Asset> assets, String indexPage, boolean http2Compresses) {
+        this.assets = assets;
+        this.indexPage = indexPage;
+        this.http2Compresses = http2Compresses;
+    }
+
+    /**
+     * Reads every file of {@code directory} (on the file system or the classpath) without
+     * blocking the caller's event loop. HTML is always revalidated, since it names the other
+     * files; everything else may be cached for {@code maxAgeSeconds}. Pass whether the HTTP
+     * server compresses responses, since over HTTP/2 it would compress a gzip body again.
+     */
+    static Future<StaticBundle> load(Vertx vertx, String directory, String indexPage, long maxAgeSeconds,
+                                     boolean serverCompresses) {
+        return vertx.fileSystem().readDir(directory)
+            .compose(paths -> {
+                List<Future<Map.Entry<String, Buffer>>> reads = new ArrayList<>();
+                for (String path : paths) {
+                    String name = path.substring(path.lastIndexOf('/') + 1);
+                    reads.add(vertx.fileSystem().readFile(path).map(content -> Map.entry(name, content)));
+                }
+                return Future.all(reads).map(v -> reads.stream().map(Future::result).toList());
+            })
+            // Compressing at the highest level is slow, so do it off the event loop
+            .compose(files -> vertx.executeBlocking(promise -> {
+                Map<String, Asset> assets = new HashMap<>();
+                for (Map.Entry<String, Buffer> file : files) {
+                    assets.put(file.getKey(), toAsset(file.getKey(), file.getValue().getBytes(), maxAgeSeconds));
+                }
+                promise.complete(new StaticBundle(Map.copyOf(assets), indexPage, serverCompresses));
+            }, false));
+    }
+
+    private static Asset toAsset(String name, byte[] content, long maxAgeSeconds) {
+        String extension = name.substring(name.lastIndexOf('.') + 1);
+        String contentType = CONTENT_TYPES.getOrDefault(extension, "application/octet-stream");
+        String cacheControl = extension.equals("html") ? "no-cache" : "public, max-age=" + maxAgeSeconds;
+
+        String hash = hash(content);
+        Variant identity = variant(content, "\"" + hash + "\"");
+        byte[] gzipped = gzip(content);
+        Variant gzip = gzipped.length < content.length ? variant(gzipped, "\"" + hash + "-gzip\"") : null;
+        return new Asset(contentType, cacheControl, identity, gzip);
+    }
+
+    private static Variant variant(byte[] bytes, String etag) {
+        Buffer body = Buffer.buffer(Unpooled.unreleasableBuffer(
+            Unpooled.directBuffer(bytes.length).writeBytes(bytes).asReadOnly()));
+        return new Variant(body, etag, Integer.toString(bytes.length));
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Serves {@code file} (relative to the bundle, empty for the index page), or passes the
+     * request on when the bundle has no such file.
+     */
+    void serve(RoutingContext context, String file) {
+        HttpServerRequest request = context.request();
+        Asset asset = assets.get(file.isEmpty() ? indexPage : file);
+        if (asset == null || (request.method() != HttpMethod.GET && request.method() != HttpMethod.HEAD)) {
+            context.next();
+            return;
+        }
+
+        boolean gzip = asset.gzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        HttpServerResponse response = context.response()
+            .putHeader(HttpHeaders.CONTENT_TYPE, asset.contentType())
+            .putHeader(HttpHeaders.CACHE_CONTROL, asset.cacheControl())
+            .putHeader(HttpHeaders.VARY, "Accept-Encoding");
+        Variant variant;
+        if (gzip && http2Compresses && request.version() == HttpVersion.HTTP_2) {
+            // The HTTP/2 compressor encodes whatever content-encoding names, so hand it the
+            // plain body; the bytes it produces are its own, hence the weak tag
+            variant = asset.identity();
+            response.putHeader(HttpHeaders.ETAG, "W/" + variant.etag());
+        } else {
+            variant = gzip ? asset.gzip() : asset.identity();
+            response.putHeader(HttpHeaders.ETAG, variant.etag())
+                // Set explicitly so that the server's own compression leaves the body alone
+                .putHeader(HttpHeaders.CONTENT_ENCODING, gzip ? "gzip" : HttpHeaders.IDENTITY);
+        }
+
+        if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), asset)) {
+            response.setStatusCode(304).end();
+        } else if (request.method() == HttpMethod.HEAD) {
+            response.putHeader(HttpHeaders.CONTENT_LENGTH, variant.contentLength()).end();
+        } else {
+            response.end(variant.body());
+        }
+    }
+
+    // Either variant's tag identifies the same content, whichever encoding the client stored
+    private static boolean etagMatches(String ifNoneMatch, Asset asset) {
+        return ApiServerApplication.etagMatches(ifNoneMatch, asset.identity().etag())
+            || (asset.gzip() != null && ApiServerApplication.etagMatches(ifNoneMatch, asset.gzip().etag()));
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip") || parts[0].trim().equals("*")) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
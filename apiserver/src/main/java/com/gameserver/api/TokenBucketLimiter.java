@@ -0,0 +1,130 @@
+package com.gameserver.api;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by string, held in lock-striped access-ordered maps. A bucket that
+ * has been idle long enough to refill completely is indistinguishable from a new one, so
+ * it is dropped; each stripe is also capped and evicts its least recently used key.
+ */
+class TokenBucketLimiter {
+
+    private static final int STRIPES = 64;
+
+    private static final class Bucket {
+        double tokens;
+        long updatedNanos;
+
+        Bucket(double tokens, long updatedNanos) {
+            this.tokens = tokens;
+            this.updatedNanos = updatedNanos;
+        }
+    }
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final long fullRefillNanos;
+    private final int maxKeysPerStripe;
+    private final LongSupplier nanoClock;
+    @SuppressWarnings("unchecked")
+    private final LinkedHashMap<String, Bucket>[] stripes = new LinkedHashMap[STRIPES];
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    TokenBucketLimiter(int capacity, double refillPerSecond, int maxKeys) {
+        this(capacity, refillPerSecond, maxKeys, System::nanoTime);
+    }
+
+    TokenBucketLimiter(int capacity, double refillPerSecond, int maxKeys, LongSupplier nanoClock) {
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerSecond / 1_000_000_000.0;
+        this.fullRefillNanos = (long) Math.ceil(capacity / tokensPerNano);
+        this.maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+        this.nanoClock = nanoClock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LinkedHashMap<>(16, 0.75f, true);
+        }
+    }
+
+    /**
+     * Takes one token for {@code key}. Returns 0 when allowed, otherwise the number of
+     * nanoseconds until a token becomes available.
+     */
+    long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        LinkedHashMap<String, Bucket> stripe = stripes[stripe(key)];
+        long waitNanos;
+        synchronized (stripe) {
+            evictIdle(stripe, now);
+            Bucket bucket = stripe.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.put(key, bucket);
+                if (stripe.size() > maxKeysPerStripe) {
+                    Iterator<Bucket> eldest = stripe.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    evictions.increment();
+                }
+            } else {
+                bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.updatedNanos) * tokensPerNano);
+                bucket.updatedNanos = now;
+            }
+            if (bucket.tokens >= 1.0) {
+                bucket.tokens -= 1.0;
+                waitNanos = 0;
+            } else {
+                waitNanos = Math.max(1, (long) Math.ceil((1.0 - bucket.tokens) / tokensPerNano));
+            }
+        }
+        if (waitNanos == 0) {
+            allowed.increment();
+        } else {
+            rejected.increment();
+        }
+        return waitNanos;
+    }
+
+    // Access order puts the longest-idle buckets first, so this stops at the first active one
+    private void evictIdle(LinkedHashMap<String, Bucket> stripe, long now) {
+        Iterator<Map.Entry<String, Bucket>> it = stripe.entrySet().iterator();
+        while (it.hasNext() && now - it.next().getValue().updatedNanos >= fullRefillNanos) {
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private static int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    int size() {
+        int size = 0;
+        for (LinkedHashMap<String, Bucket> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    JsonObject stats() {
+        return new JsonObject()
+            .put("keys", size())
+            .put("maxKeys", maxKeysPerStripe * STRIPES)
+            .put("capacity", capacity)
+            .put("refillPerSecond", tokensPerNano * 1_000_000_000.0)
+            .put("allowed", allowed.sum())
+            .put("rejected", rejected.sum())
+            .put("evictions", evictions.sum());
+    }
+}
@@ -0,0 +1,86 @@
+package com.gameserver.api;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of tokens whose signature has already been checked, keyed by the
+ * signature segment. An entry is only returned for the exact token it was stored
+ * with and never after the token's exp claim.
+ */
+class VerifiedTokenCache {
+
+    private record Entry(String token, JwtPrincipal principal) {
+    }
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    VerifiedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+    }
+
+    JwtPrincipal get(String signature, String token, long nowEpochSecond) {
+        Entry entry = entries.get(signature);
+        if (entry != null && entry.token().equals(token)) {
+            if (nowEpochSecond <= entry.principal().exp()) {
+                hits.increment();
+                return entry.principal();
+            }
+            if (entries.remove(signature, entry)) {
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    void put(String signature, String token, JwtPrincipal principal, long nowEpochSecond) {
+        if (entries.size() >= maxSize) {
+            evict(nowEpochSecond);
+        }
+        entries.put(signature, new Entry(token, principal));
+    }
+
+    private void evict(long nowEpochSecond) {
+        // Drop expired tokens first; if that frees nothing, drop entries in hash order,
+        // which is effectively random eviction without any bookkeeping on the read path.
+        int removed = 0;
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            if (nowEpochSecond > it.next().getValue().principal().exp()) {
+                it.remove();
+                removed++;
+            }
+        }
+        int target = Math.max(1, maxSize / 16);
+        it = entries.entrySet().iterator();
+        while (removed < target && entries.size() >= maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            removed++;
+        }
+        evictions.add(removed);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    JsonObject stats() {
+        return new JsonObject()
+            .put("size", entries.size())
+            .put("maxSize", maxSize)
+            .put("hits", hits.sum())
+            .put("misses", misses.sum())
+            .put("evictions", evictions.sum());
+    }
+}
@@ -356,13 +356,28 @@ document.addEventListener('DOMContentLoaded', () => {
     gameClient = new GameClient();
 });
 
-// Auto-refresh inventory every 30 seconds if enabled
+// Auto-refresh: reload the inventory when the server pushes a change; the connection is checked every 5 seconds
+let inventoryUpdates = null;
 setInterval(() => {
     const autoRefresh = document.getElementById('autoRefresh');
-    if (autoRefresh && autoRefresh.checked && gameClient.accessToken) {
+    const wanted = autoRefresh && autoRefresh.checked && gameClient && gameClient.accessToken;
+    if (!wanted) {
+        if (inventoryUpdates) {
+            inventoryUpdates.close();
+            inventoryUpdates = null;
+        }
+        return;
+    }
+    if (inventoryUpdates && inventoryUpdates.readyState <= WebSocket.OPEN) {
+        return;
+    }
+    const url = `${gameClient.apiUrl.replace(/^http/, 'ws')}/inventory/updates?access_token=${encodeURIComponent(gameClient.accessToken)}`;
+    inventoryUpdates = new WebSocket(url);
+    inventoryUpdates.onmessage = (event) => {
+        const message = JSON.parse(event.data);
         const currentTab = document.querySelector('.tab-btn.active').dataset.tab;
-        if (currentTab === 'inventory') {
+        if (message.type !== 'subscribed' && currentTab === 'inventory') {
             gameClient.loadInventory();
         }
-    }
-}, 30000);
\ No newline at end of file
+    };
+}, 5000);
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.gameserver.api;
 
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.junit5.VertxTestContext;
@@ -28,14 +29,13 @@ class AuthenticationApiTest extends BaseTest {
         app.setDatabaseService(dbService);
         app.setJwtService(jwtService);
         
-        vertx.deployVerticle(app)
+        DeploymentOptions options = new DeploymentOptions()
+            .setConfig(new JsonObject().put("http.port", port));
+        
+        vertx.deployVerticle(app, options)
             .onSuccess(id -> {
                 deploymentId = id;
-                vertx.createHttpServer()
-                    .requestHandler(app.createRouter())
-                    .listen(port)
-                    .onSuccess(server -> testContext.completeNow())
-                    .onFailure(testContext::failNow);
+                testContext.completeNow();
             })
             .onFailure(testContext::failNow);
     }
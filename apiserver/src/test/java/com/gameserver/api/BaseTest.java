@@ -7,6 +7,8 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.util.logging.Logger;
+
 @ExtendWith(VertxExtension.class)
 public abstract class BaseTest {
     
@@ -18,6 +20,13 @@ public abstract class BaseTest {
         testContext.completeNow();
     }
     
+    /**
+     * Logs a measurement under the test class's logger.
+     */
+    protected void report(String format, Object... args) {
+        Logger.getLogger(getClass().getName()).info(() -> String.format(format, args));
+    }
+    
     @AfterEach
     void tearDown(VertxTestContext testContext) {
         if (vertx != null) {
@@ -0,0 +1,126 @@
+package com.gameserver.api;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryWriterTest {
+
+    private static String hex(BinaryWriter writer) {
+        return HexFormat.of().formatHex(writer.buffer.getBytes());
+    }
+
+    private static BinaryWriter cbor() {
+        return BinaryWriter.cbor(Buffer.buffer());
+    }
+
+    private static BinaryWriter messagePack() {
+        return BinaryWriter.messagePack(Buffer.buffer());
+    }
+
+    private static byte[] json(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testCborMatchesSpecificationExamples() {
+        // RFC 8949, Appendix A
+        assertEquals("00", hex(cbor().integer(0)));
+        assertEquals("17", hex(cbor().integer(23)));
+        assertEquals("1818", hex(cbor().integer(24)));
+        assertEquals("1903e8", hex(cbor().integer(1000)));
+        assertEquals("1a000f4240", hex(cbor().integer(1_000_000)));
+        assertEquals("1b000000e8d4a51000", hex(cbor().integer(1_000_000_000_000L)));
+        assertEquals("20", hex(cbor().integer(-1)));
+        assertEquals("3903e7", hex(cbor().integer(-1000)));
+        assertEquals("fb3ff199999999999a", hex(cbor().float64(1.1)));
+        assertEquals("f4f5f6", hex(cbor().bool(false).bool(true).nil()));
+        assertEquals("60", hex(cbor().string("")));
+        assertEquals("6449455446", hex(cbor().string("IETF")));
+        assertEquals("a201020304", hex(cbor().mapHeader(2).integer(1).integer(2).integer(3).integer(4)));
+        assertEquals("bf61610161629f0203ffff", hex(cbor().json(json("{\"a\":1,\"b\":[2,3]}"))));
+    }
+
+    @Test
+    void testMessagePackUsesSmallestEncodings() {
+        assertEquals("7f", hex(messagePack().integer(127)));
+        assertEquals("cc80", hex(messagePack().integer(128)));
+        assertEquals("cd0100", hex(messagePack().integer(256)));
+        assertEquals("ce00010000", hex(messagePack().integer(65_536)));
+        assertEquals("e0", hex(messagePack().integer(-32)));
+        assertEquals("d0df", hex(messagePack().integer(-33)));
+        assertEquals("d1ff7f", hex(messagePack().integer(-129)));
+        assertEquals("c2c3c0", hex(messagePack().bool(false).bool(true).nil()));
+        assertEquals("a3616263", hex(messagePack().string("abc")));
+        assertEquals("d920" + "61".repeat(32), hex(messagePack().string("a".repeat(32))));
+        assertEquals("8f", hex(messagePack().mapHeader(15)));
+        assertEquals("de0010", hex(messagePack().mapHeader(16)));
+        assertEquals("dc0010", hex(messagePack().arrayHeader(16)));
+    }
+
+    @Test
+    void testMessagePackPatchesSizesOfTranscodedContainers() {
+        assertEquals("df00000002a16101a162dd000000020203",
+            hex(messagePack().json(json("{\"a\":1,\"b\":[2,3]}"))));
+        assertEquals("df00000000", hex(messagePack().json(json("{}"))));
+        assertEquals("dd00000000", hex(messagePack().json(json(" [ ] "))));
+    }
+
+    @Test
+    void testEscapedStringsAndWhitespaceAreHandled() {
+        assertEquals("bf" + "6171" + "9f" + "63612262" + "62c3a9" + "20" + "ff" + "ff",
+            hex(cbor().json(json(" {\n \"q\" : [ \"a\\\"b\" , \"\u00e9\", -1 ]\t} "))));
+        assertThrows(IllegalArgumentException.class, () -> cbor().json(json("{} x")));
+    }
+
+    @Test
+    void testMalformedJsonIsRejected() {
+        for (String document : new String[] {"[tru]", "[nulx]", "[fals3]", "[1-2]", "[+1]", "{\"a\":", "[1,", "\"a", ""}) {
+            assertThrows(IllegalArgumentException.class, () -> cbor().json(json(document)), document);
+        }
+    }
+
+    @Test
+    void testJsonValuesAreTranscoded() {
+        String document = "{\"s\":\"\\u00e9\",\"f\":-0.5,\"t\":true,\"n\":null,\"big\":18446744073709551616}";
+        assertEquals("bf"
+                + "6173" + "62c3a9"
+                + "6166" + "fbbfe0000000000000"
+                + "6174" + "f5"
+                + "616e" + "f6"
+                + "63626967" + "fb43f0000000000000"
+                + "ff",
+            hex(cbor().json(json(document))));
+    }
+
+    @Test
+    void testInventoryHasTheSameFieldsInEveryFormat() {
+        List<InventoryItem> items = List.of(
+            new InventoryItem("Sword", "weapon", 1, json("{\"damage\":10}")));
+
+        Buffer cbor = InventoryBinaryWriter.encode(BinaryWriter::cbor, 7, items);
+        assertEquals("a2" + "66757365724964" + "07"
+                + "69696e76656e746f7279" + "81"
+                + "a4"
+                + "696974656d5f6e616d65" + "6553776f7264"
+                + "696974656d5f74797065" + "66776561706f6e"
+                + "687175616e74697479" + "01"
+                + "6a70726f70657274696573" + "bf6664616d616765" + "0a" + "ff",
+            HexFormat.of().formatHex(cbor.getBytes()));
+
+        Buffer messagePack = InventoryBinaryWriter.encode(BinaryWriter::messagePack, 7, items);
+        assertEquals("82" + "a6757365724964" + "07"
+                + "a9696e76656e746f7279" + "91"
+                + "84"
+                + "a9" + "6974656d5f6e616d65" + "a553776f7264"
+                + "a9" + "6974656d5f74797065" + "a6776561706f6e"
+                + "a8" + "7175616e74697479" + "01"
+                + "aa" + "70726f70657274696573" + "df00000001" + "a66461" + "6d616765" + "0a",
+            HexFormat.of().formatHex(messagePack.getBytes()));
+    }
+}
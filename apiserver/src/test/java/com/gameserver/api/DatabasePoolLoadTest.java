@@ -0,0 +1,99 @@
+package com.gameserver.api;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.Timeout;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.sqlclient.Tuple;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Tag("perf")
+class DatabasePoolLoadTest extends BaseTest {
+
+    private static final int REQUESTS = 20_000;
+    private static final int CONCURRENCY = 64;
+
+    @Test
+    @Timeout(value = 5, timeUnit = TimeUnit.MINUTES)
+    void testLatencyUnderConcurrencyByPoolConfiguration(VertxTestContext testContext) {
+        JsonObject untuned = new JsonObject()
+            .put("db.pool.maxSize", 1)
+            .put("db.pool.preparedStatementCacheSize", 0);
+        JsonObject tuned = new JsonObject()
+            .put("db.pool.maxSize", 16)
+            .put("db.pool.preparedStatementCacheSize", 32);
+
+        measure("pool=1 statementCache=off", untuned)
+            .compose(v -> measure("pool=16 statementCache=32", tuned))
+            .onSuccess(v -> testContext.completeNow())
+            .onFailure(testContext::failNow);
+    }
+
+    private Future<Void> measure(String label, JsonObject config) {
+        // Bypass the inventory cache so every call reaches the pool, and log in with a cheap
+        // hash so password verification does not dominate the measurement
+        config.put("inventory.cache.maxItems", 0)
+            .put("db.pool.maxWaitQueueSize", REQUESTS)
+            .put("auth.pbkdf2.iterations", 1)
+            .put("auth.hash.maxQueueSize", REQUESTS);
+        DatabaseService databaseService = new DatabaseService(vertx, "test_pool_load_" + System.nanoTime(), config);
+
+        return databaseService.init()
+            .compose(v -> databaseService.client().preparedQuery("INSERT INTO users (username, password) VALUES (?, ?)")
+                .execute(Tuple.of("pooluser", new PasswordHasher(1).hash("secret"))))
+            .compose(v -> run(databaseService, REQUESTS / 4))
+            .compose(v -> run(databaseService, REQUESTS))
+            .map(latencies -> {
+                Arrays.sort(latencies);
+                report("%s: requests=%d concurrency=%d p50=%.1fus p99=%.1fus max=%.1fus",
+                    label, REQUESTS, CONCURRENCY,
+                    percentile(latencies, 0.50) / 1000.0,
+                    percentile(latencies, 0.99) / 1000.0,
+                    latencies[latencies.length - 1] / 1000.0);
+                return (Void) null;
+            })
+            .eventually(v -> databaseService.close());
+    }
+
+    private Future<long[]> run(DatabaseService databaseService, int total) {
+        long[] latencies = new long[total];
+        AtomicInteger issued = new AtomicInteger();
+        List<Future<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            Promise<Void> promise = Promise.promise();
+            next(databaseService, latencies, issued, promise);
+            workers.add(promise.future());
+        }
+        return Future.all(workers).map(v -> latencies);
+    }
+
+    private void next(DatabaseService databaseService, long[] latencies, AtomicInteger issued, Promise<Void> promise) {
+        int index = issued.getAndIncrement();
+        if (index >= latencies.length) {
+            promise.complete();
+            return;
+        }
+        long start = System.nanoTime();
+        Future<?> operation = index % 2 == 0
+            ? databaseService.authenticateUser("pooluser", "secret")
+            : databaseService.getUserInventory(1 + index % 3);
+        operation
+            .onSuccess(result -> {
+                latencies[index] = System.nanoTime() - start;
+                next(databaseService, latencies, issued, promise);
+            })
+            .onFailure(promise::fail);
+    }
+
+    static long percentile(long[] sorted, double quantile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+}
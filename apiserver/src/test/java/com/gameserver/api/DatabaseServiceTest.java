@@ -1,10 +1,23 @@
 package com.gameserver.api;
 
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxTestContext;
+import io.vertx.sqlclient.Tuple;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -139,4 +152,727 @@ class DatabaseServiceTest extends BaseTest {
             })
             .onFailure(testContext::failNow);
     }
-}
\ No newline at end of file
+    
+    @Test
+    void testGetUserInventoryServedFromCache(VertxTestContext testContext) {
+        databaseService.getUserInventoryItems(1)
+            .compose(first -> databaseService.getUserInventoryItems(1)
+                .onSuccess(second -> testContext.verify(() -> assertSame(first, second))))
+            .onSuccess(v -> {
+                testContext.verify(() -> {
+                    JsonObject stats = databaseService.getInventoryCacheStats();
+                    assertEquals(1L, stats.getLong("hits"));
+                    assertEquals(1L, stats.getLong("misses"));
+                    assertEquals(0.5, stats.getDouble("hitRatio"), 0.0001);
+                });
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testInvalidateInventoryForcesReload(VertxTestContext testContext) {
+        databaseService.getUserInventoryItems(1)
+            .compose(first -> {
+                databaseService.invalidateInventory(1);
+                return databaseService.getUserInventoryItems(1)
+                    .onSuccess(second -> testContext.verify(() -> {
+                        assertNotSame(first, second);
+                        assertEquals(DatabaseService.toJsonArray(first), DatabaseService.toJsonArray(second));
+                    }));
+            })
+            .onSuccess(v -> {
+                testContext.verify(() -> {
+                    JsonObject stats = databaseService.getInventoryCacheStats();
+                    assertEquals(2L, stats.getLong("misses"));
+                    assertEquals(1L, stats.getLong("invalidations"));
+                });
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testConcurrentInventoryMissesShareOneQuery(VertxTestContext testContext) {
+        vertx.getOrCreateContext().runOnContext(v -> {
+            List<Future<List<InventoryItem>>> loads = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                loads.add(databaseService.getUserInventoryItems(1));
+            }
+            Future.all(loads).onComplete(testContext.succeeding(all -> testContext.verify(() -> {
+                for (Future<List<InventoryItem>> load : loads) {
+                    assertSame(loads.get(0).result(), load.result());
+                }
+                JsonObject stats = databaseService.getInventoryLoadStats();
+                assertEquals(1L, stats.getLong("loads"));
+                assertEquals(4L, stats.getLong("coalesced"));
+                assertEquals(0, stats.getInteger("inFlight"));
+                testContext.completeNow();
+            })));
+        });
+    }
+    
+    @Test
+    void testLookupsInOneTaskRunAsOneBatch(VertxTestContext testContext) {
+        vertx.getOrCreateContext().runOnContext(v -> {
+            Future<List<InventoryItem>> first = databaseService.getUserInventoryItems(1);
+            Future<List<InventoryItem>> second = databaseService.getUserInventoryItems(2);
+            Future<List<InventoryItem>> unknown = databaseService.getUserInventoryItems(999);
+            Future<JsonObject> player1 = databaseService.authenticateUser("player1", "password123");
+            Future<JsonObject> player2 = databaseService.authenticateUser("player2", "wrongpassword");
+            Future<JsonObject> nobody = databaseService.authenticateUser("nobody", "password123");
+    
+            Future.all(List.of(first, second, unknown, player1, player2, nobody))
+                .onComplete(testContext.succeeding(all -> testContext.verify(() -> {
+                    assertEquals(3, first.result().size());
+                    assertEquals("Magic Staff", second.result().get(0).itemName());
+                    assertTrue(unknown.result().isEmpty());
+                    assertEquals(1, player1.result().getInteger("ID"));
+                    assertNull(player2.result());
+                    assertNull(nobody.result());
+    
+                    JsonObject inventories = databaseService.getInventoryLookupStats();
+                    assertEquals(3L, inventories.getLong("lookups"));
+                    assertEquals(1L, inventories.getLong("batches"));
+                    assertEquals(3, inventories.getInteger("largestBatch"));
+                    JsonObject users = databaseService.getUserLookupStats();
+                    assertEquals(3L, users.getLong("lookups"));
+                    assertEquals(1L, users.getLong("batches"));
+                    testContext.completeNow();
+                })));
+        });
+    }
+    
+    @Test
+    void testFullLookupBatchRunsWithoutWaiting(VertxTestContext testContext) {
+        DatabaseService batched = new DatabaseService(vertx, "test_db_lookup_" + System.nanoTime(), new JsonObject()
+            .put("db.lookup.batchWindowMs", 60_000)
+            .put("db.lookup.maxBatchSize", 2));
+        batched.init().onComplete(testContext.succeeding(v -> {
+            Future<List<InventoryItem>> first = batched.getUserInventoryItems(1);
+            Future<List<InventoryItem>> second = batched.getUserInventoryItems(2);
+            Future.all(first, second).onComplete(testContext.succeeding(all -> testContext.verify(() -> {
+                assertEquals(3, first.result().size());
+                assertEquals(2, second.result().size());
+                assertEquals(1L, batched.getInventoryLookupStats().getLong("batches"));
+                batched.close().onComplete(ar -> testContext.completeNow());
+            })));
+        }));
+    }
+    
+    @Test
+    void testInventoryCacheEvictsLeastRecentlyUsedByWeight() {
+        InventoryCache cache = new InventoryCache(5, 60_000);
+        InventoryItem item = new InventoryItem("Stone", "material", 1, "{}".getBytes());
+        List<InventoryItem> twoItems = List.of(item, item);
+        
+        cache.put(1, twoItems, cache.generation(1));
+        cache.put(2, twoItems, cache.generation(2));
+        cache.get(1);
+        cache.put(3, twoItems, cache.generation(3));
+        
+        assertNotNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(3));
+        assertEquals(1L, cache.stats().getLong("evictions"));
+    }
+    
+    @Test
+    void testInventoryCacheSegmentsEvictWithinTheirShare() {
+        // 16 segments of 4096 items; users 0 and 16 share a segment, user 1 does not
+        InventoryCache cache = new InventoryCache(16 * 4096, 60_000);
+        InventoryItem item = new InventoryItem("Stone", "material", 1, "{}".getBytes());
+        
+        cache.put(0, Collections.nCopies(4000, item), cache.generation(0));
+        cache.put(1, Collections.nCopies(4000, item), cache.generation(1));
+        cache.put(16, Collections.nCopies(200, item), cache.generation(16));
+        cache.put(2, Collections.nCopies(5000, item), cache.generation(2));
+        
+        assertNull(cache.get(0));
+        assertNotNull(cache.get(1));
+        assertNotNull(cache.get(16));
+        assertNull(cache.get(2), "An inventory larger than a segment's share is not cached");
+        assertEquals(4200L, cache.stats().getLong("weight"));
+    }
+    
+    @Test
+    void testInventoryCacheIgnoresLoadStartedBeforeInvalidation() {
+        InventoryCache cache = new InventoryCache(100, 60_000);
+        long generation = cache.generation(1);
+        
+        cache.invalidate(1);
+        cache.put(1, List.of(new InventoryItem("Stone", "material", 1, "{}".getBytes())), generation);
+        
+        assertNull(cache.get(1));
+    }
+    
+    @Test
+    void testPoolRejectsWhenWaitQueueIsFull(VertxTestContext testContext) {
+        JsonObject config = new JsonObject()
+            .put("inventory.cache.maxItems", 0)
+            .put("db.pool.maxSize", 1)
+            .put("db.pool.maxWaitQueueSize", 0)
+            // Batched, the two lookups would share one connection
+            .put("db.lookup.maxBatchSize", 1);
+        DatabaseService smallPool = new DatabaseService(vertx, "test_pool_" + System.nanoTime(), config);
+        
+        smallPool.init()
+            .onSuccess(v -> {
+                Future<JsonArray> first = smallPool.getUserInventory(1);
+                Future<JsonArray> second = smallPool.getUserInventory(2);
+                
+                testContext.verify(() -> {
+                    assertTrue(second.failed());
+                    assertTrue(second.cause() instanceof ServiceBusyException);
+                    assertEquals(1L, smallPool.getPoolStats().getLong("rejected"));
+                });
+                first
+                    .onSuccess(inventory -> testContext.verify(() -> {
+                        assertEquals(3, inventory.size());
+                        assertEquals(0, smallPool.getPoolStats().getInteger("active"));
+                        testContext.completeNow();
+                    }))
+                    .onFailure(testContext::failNow);
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testFileModeKeepsDataAcrossRestart(@TempDir Path dataDir, VertxTestContext testContext) {
+        JsonObject config = new JsonObject()
+            .put("db.mode", "file")
+            .put("db.path", dataDir.resolve("gameserver").toString())
+            .put("db.writeDelayMs", 0);
+        DatabaseService first = new DatabaseService(vertx, "file_first", config);
+        
+        first.init()
+            .compose(v -> first.client().query("UPDATE inventory SET quantity = 42 WHERE item_name = 'Health Potion'").execute())
+            .compose(v -> first.close())
+            .compose(v -> {
+                DatabaseService restarted = new DatabaseService(vertx, "file_restarted", config);
+                return restarted.init()
+                    .compose(v2 -> restarted.client().query("SELECT COUNT(*) FROM users").execute())
+                    .compose(rows -> {
+                        testContext.verify(() -> assertEquals(3L, rows.iterator().next().getLong(0)));
+                        return restarted.getUserInventory(1);
+                    })
+                    .onSuccess(inventory -> testContext.verify(() ->
+                        TestUtils.assertItemExists(inventory, "Health Potion", "consumable", 42)))
+                    .eventually(v2 -> restarted.close());
+            })
+            .onSuccess(v -> testContext.completeNow())
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testUndeployDrainsQueuedWritesAndClosesDatabase(@TempDir Path dataDir, VertxTestContext testContext) {
+        String path = dataDir.resolve("gameserver").toString();
+        JsonObject config = new JsonObject()
+            .put("http.port", 8086)
+            .put("instances", 4)
+            .put("db.mode", "file")
+            .put("db.path", path)
+            .put("db.compactOnClose", true)
+            // Only closing the service commits the write
+            .put("inventory.write.batchWindowMs", 600_000);
+        DatabaseService service = new DatabaseService(vertx, "test_undeploy_" + System.nanoTime(), config);
+        
+        ApiServerApplication.deploy(vertx, config, service)
+            .compose(id -> {
+                Future<Void> write = service.mutateInventory(InventoryMutation.grant(1, "Phoenix Feather", "material", 1, null));
+                return vertx.undeploy(id).map(v -> write);
+            })
+            .onSuccess(write -> testContext.verify(() -> {
+                assertTrue(write.succeeded(), "Queued write is committed during undeploy");
+                try (Connection connection = DriverManager.getConnection("jdbc:h2:file:" + path, "sa", "");
+                     Statement statement = connection.createStatement()) {
+                    ResultSet rows = statement.executeQuery("SELECT quantity FROM inventory WHERE item_name = 'Phoenix Feather'");
+                    assertTrue(rows.next());
+                    assertEquals(1, rows.getInt(1));
+                }
+                testContext.completeNow();
+            }))
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testInventoryQueryUsesUserItemIndex(VertxTestContext testContext) {
+        databaseService.client().preparedQuery("EXPLAIN " + DatabaseService.USER_INVENTORY_SQL)
+            .execute(Tuple.of(1))
+            .onSuccess(rows -> {
+                String plan = rows.iterator().next().getString(0);
+                testContext.verify(() -> {
+                    assertTrue(plan.contains("IDX_INVENTORY_USER_ITEM"), plan);
+                    assertTrue(plan.contains("index sorted"), plan);
+                });
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testMigrationsAreRecordedOnce(VertxTestContext testContext) {
+        SchemaMigrations.migrate((io.vertx.sqlclient.Pool) databaseService.client())
+            .compose(version -> databaseService.client().query("SELECT COUNT(*), MAX(version) FROM schema_version").execute())
+            .onSuccess(rows -> {
+                testContext.verify(() -> {
+                    int latest = SchemaMigrations.MIGRATIONS.get(SchemaMigrations.MIGRATIONS.size() - 1).version();
+                    assertEquals(SchemaMigrations.MIGRATIONS.size(), rows.iterator().next().getInteger(0));
+                    assertEquals(latest, rows.iterator().next().getInteger(1));
+                });
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testMigrationResumesAfterFailingPartway(VertxTestContext testContext) {
+        SchemaMigrations.Migration jsonProperties = SchemaMigrations.MIGRATIONS.get(2);
+        Future<Void> chain = Future.succeededFuture();
+        // DDL is committed at once, so any prefix of the steps may have been applied
+        for (int applied = 1; applied < jsonProperties.steps().size(); applied++) {
+            int prefix = applied;
+            String dbName = "test_partial_" + prefix + "_" + System.nanoTime();
+            chain = chain
+                .compose(v -> vertx.<Void>executeBlocking(promise -> {
+                    try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:" + dbName + ";DB_CLOSE_DELAY=-1", "sa", "");
+                         Statement statement = connection.createStatement()) {
+                        for (SchemaMigrations.Migration migration : SchemaMigrations.MIGRATIONS.subList(0, 2)) {
+                            for (SchemaMigrations.Step step : migration.steps()) {
+                                statement.execute(step.statement());
+                            }
+                        }
+                        statement.execute("CREATE TABLE schema_version (version INT PRIMARY KEY, "
+                            + "description VARCHAR(200) NOT NULL, applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+                        statement.execute("INSERT INTO schema_version (version, description) VALUES (1, 'one'), (2, 'two')");
+                        statement.execute("INSERT INTO users (username, password) VALUES ('legacy', 'secret')");
+                        statement.execute("INSERT INTO inventory (user_id, item_name, item_type, properties) "
+                            + "VALUES (1, 'Gem', 'gem', '{\"shine\": 3}')");
+                        for (SchemaMigrations.Step step : jsonProperties.steps().subList(0, prefix)) {
+                            boolean applies = true;
+                            if (step.onlyIf() != null) {
+                                ResultSet guard = statement.executeQuery(step.onlyIf());
+                                guard.next();
+                                applies = guard.getBoolean(1);
+                            }
+                            if (applies) {
+                                statement.execute(step.statement());
+                            }
+                        }
+                        promise.complete();
+                    } catch (Exception e) {
+                        promise.fail(e);
+                    }
+                }))
+                .compose(v -> {
+                    DatabaseService resumed = new DatabaseService(vertx, dbName);
+                    return resumed.init()
+                        .compose(v2 -> resumed.getUserInventory(1))
+                        .onSuccess(inventory -> testContext.verify(() -> assertEquals(3,
+                            TestUtils.getItem(inventory, "Gem").getJsonObject("properties").getInteger("shine"),
+                            "Resumed after " + prefix + " steps")))
+                        .eventually(v2 -> resumed.close())
+                        .mapEmpty();
+                });
+        }
+        chain.onSuccess(v -> testContext.completeNow()).onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testMigrationRepairsMalformedLegacyProperties(VertxTestContext testContext) {
+        String dbName = "test_legacy_" + System.nanoTime();
+        String url = "jdbc:h2:mem:" + dbName + ";DB_CLOSE_DELAY=-1";
+        
+        // A database as created before migration 3: free-form VARCHAR properties
+        vertx.<Void>executeBlocking(promise -> {
+            try (Connection connection = DriverManager.getConnection(url, "sa", "");
+                 Statement statement = connection.createStatement()) {
+                for (SchemaMigrations.Step step : SchemaMigrations.MIGRATIONS.get(0).steps()) {
+                    statement.execute(step.statement());
+                }
+                statement.execute("INSERT INTO users (username, password) VALUES ('legacy', 'secret')");
+                statement.execute("INSERT INTO inventory (user_id, item_name, item_type, quantity, properties) VALUES "
+                    + "(1, 'Broken', 'junk', 1, 'not json'), "
+                    + "(1, 'Empty', 'junk', 1, '  '), "
+                    + "(1, 'Missing', 'junk', 1, NULL), "
+                    + "(1, 'Valid', 'gem', 1, '{\"shine\": 3}')");
+                promise.complete();
+            } catch (Exception e) {
+                promise.fail(e);
+            }
+        })
+            .compose(v -> {
+                DatabaseService legacy = new DatabaseService(vertx, dbName);
+                return legacy.init().compose(v2 -> legacy.getUserInventory(1));
+            })
+            .onSuccess(inventory -> {
+                testContext.verify(() -> {
+                    assertEquals(4, inventory.size());
+                    assertEquals(new JsonObject(), TestUtils.getItem(inventory, "Broken").getJsonObject("properties"));
+                    assertEquals(new JsonObject(), TestUtils.getItem(inventory, "Empty").getJsonObject("properties"));
+                    assertEquals(new JsonObject(), TestUtils.getItem(inventory, "Missing").getJsonObject("properties"));
+                    assertEquals(3, TestUtils.getItem(inventory, "Valid").getJsonObject("properties").getInteger("shine"));
+                });
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testPropertiesColumnRejectsInvalidJson(VertxTestContext testContext) {
+        databaseService.client()
+            .preparedQuery("INSERT INTO inventory (user_id, item_name, item_type, quantity, properties) VALUES (1, 'Bad', 'junk', 1, ? FORMAT JSON)")
+            .execute(Tuple.of("[1, 2]"))
+            .onSuccess(rows -> testContext.failNow("Non-object properties must be rejected"))
+            .onFailure(error -> testContext.completeNow());
+    }
+    
+    @Test
+    void testInventoryPageQueryIsIndexSorted(VertxTestContext testContext) {
+        databaseService.client().preparedQuery("EXPLAIN " + DatabaseService.INVENTORY_PAGE_SQL)
+            .execute(Tuple.of(1, "", 0, 10))
+            .onSuccess(rows -> {
+                String plan = rows.iterator().next().getString(0);
+                testContext.verify(() -> {
+                    assertTrue(plan.contains("IDX_INVENTORY_USER_ITEM"), plan);
+                    assertTrue(plan.contains("index sorted"), plan);
+                });
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testGetUserInventoryPageWalksKeyset(VertxTestContext testContext) {
+        databaseService.getUserInventoryPage(1, InventoryPage.Key.START, 2)
+            .compose(first -> {
+                testContext.verify(() -> {
+                    assertEquals(List.of("Health Potion", "Iron Sword"),
+                        first.items().stream().map(InventoryItem::itemName).toList());
+                    assertNotNull(first.next());
+                    assertEquals("Iron Sword", first.next().itemName());
+                });
+                return databaseService.getUserInventoryPage(1, first.next(), 2);
+            })
+            .onSuccess(second -> {
+                testContext.verify(() -> {
+                    assertEquals(List.of("Leather Armor"),
+                        second.items().stream().map(InventoryItem::itemName).toList());
+                    assertNull(second.next());
+                });
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testInventoryPageKeyParsesLastComma() {
+        InventoryPage.Key key = InventoryPage.Key.parse("Sword, of Doom,42");
+        assertEquals("Sword, of Doom", key.itemName());
+        assertEquals(42, key.id());
+        assertEquals("Sword, of Doom,42", key.toString());
+        assertThrows(IllegalArgumentException.class, () -> InventoryPage.Key.parse("no-id"));
+        assertThrows(IllegalArgumentException.class, () -> InventoryPage.Key.parse("Sword,x"));
+    }
+    
+    @Test
+    void testInventoryCursorReadsInChunksAndReleasesConnection(VertxTestContext testContext) {
+        databaseService.openInventoryCursor(1, 2)
+            .compose(cursor -> cursor.next(2)
+                .compose(first -> cursor.next(2).map(second -> List.of(first, second)))
+                .compose(chunks -> cursor.next(2).map(rest -> {
+                    testContext.verify(() -> {
+                        assertEquals(2, chunks.get(0).size());
+                        assertEquals(1, chunks.get(1).size());
+                        assertTrue(rest.isEmpty());
+                        assertEquals("Health Potion", chunks.get(0).get(0).itemName());
+                        assertEquals(25, new JsonObject(Buffer.buffer(
+                            chunks.get(0).get(0).properties())).getInteger("healing"));
+                    });
+                    return cursor;
+                }))
+                .compose(c -> c.close()))
+            .onSuccess(v -> {
+                testContext.verify(() -> assertEquals(0, databaseService.getPoolStats().getInteger("active")));
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testGetUserInventoriesLoadsManyUsersAtOnce(VertxTestContext testContext) {
+        databaseService.getUserInventories(List.of(2, 999, 1, 2))
+            .onSuccess(inventories -> {
+                testContext.verify(() -> {
+                    assertEquals(List.of(2, 999, 1), List.copyOf(inventories.keySet()));
+                    assertEquals(List.of("Magic Staff", "Mana Potion"),
+                        inventories.get(2).stream().map(InventoryItem::itemName).toList());
+                    assertTrue(inventories.get(999).isEmpty());
+                    assertEquals(3, inventories.get(1).size());
+                });
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testGetUserInventoriesUsesAndFillsCache(VertxTestContext testContext) {
+        databaseService.getUserInventoryItems(1)
+            .compose(v -> databaseService.getUserInventories(List.of(1, 2)))
+            .compose(first -> {
+                testContext.verify(() -> {
+                    JsonObject stats = databaseService.getInventoryCacheStats();
+                    // User 1 came from the cache, user 2 was loaded and cached
+                    assertEquals(1L, stats.getLong("hits"));
+                    assertEquals(2, stats.getInteger("size"));
+                });
+                return databaseService.getUserInventoryItems(2).map(cached -> {
+                    testContext.verify(() -> assertSame(first.get(2), cached));
+                    return cached;
+                });
+            })
+            .onSuccess(v -> testContext.completeNow())
+            .onFailure(testContext::failNow);
+    }
+    
+    private Future<Integer> quantityOf(int userId, String itemName) {
+        return databaseService.getUserInventoryItems(userId).map(items -> items.stream()
+            .filter(item -> item.itemName().equals(itemName))
+            .map(InventoryItem::quantity)
+            .findFirst()
+            .orElse(0));
+    }
+    
+    @Test
+    void testGrantInsertsThenStacks(VertxTestContext testContext) {
+        databaseService.mutateInventory(InventoryMutation.grant(2, "Dragon Scale", "material", 2, "{\"rarity\":\"epic\"}"))
+            .compose(v -> databaseService.mutateInventory(InventoryMutation.grant(2, "Dragon Scale", "material", 3, null)))
+            .compose(v -> databaseService.getUserInventoryItems(2))
+            .onSuccess(items -> {
+                testContext.verify(() -> {
+                    InventoryItem scale = items.stream()
+                        .filter(item -> item.itemName().equals("Dragon Scale")).findFirst().orElseThrow();
+                    assertEquals(5, scale.quantity());
+                    assertEquals("epic", new JsonObject(Buffer.buffer(scale.properties())).getString("rarity"));
+                });
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testConsumeRejectsInsufficientQuantityAndRemovesEmptyStacks(VertxTestContext testContext) {
+        databaseService.mutateInventory(InventoryMutation.consume(1, "Health Potion", 6))
+            .onSuccess(v -> testContext.failNow("Consuming more than the stack must fail"))
+            .recover(error -> {
+                testContext.verify(() -> {
+                    assertInstanceOf(InventoryMutationException.class, error);
+                    assertEquals(409, ((InventoryMutationException) error).statusCode());
+                });
+                return databaseService.mutateInventory(InventoryMutation.consume(1, "Health Potion", 2));
+            })
+            .compose(v -> quantityOf(1, "Health Potion"))
+            .compose(quantity -> {
+                testContext.verify(() -> assertEquals(3, quantity));
+                return databaseService.mutateInventory(InventoryMutation.consume(1, "Health Potion", 3));
+            })
+            .compose(v -> databaseService.getUserInventoryItems(1))
+            .onSuccess(items -> {
+                testContext.verify(() -> assertTrue(items.stream().noneMatch(item -> item.itemName().equals("Health Potion"))));
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testUpdateChangesPropertiesOrReportsMissingItem(VertxTestContext testContext) {
+        databaseService.mutateInventory(InventoryMutation.update(1, "Iron Sword", null, "{\"damage\": 60}"))
+            .compose(v -> databaseService.getUserInventory(1))
+            .compose(inventory -> {
+                testContext.verify(() -> {
+                    JsonObject sword = TestUtils.getItem(inventory, "Iron Sword");
+                    assertEquals("weapon", sword.getString("item_type"));
+                    assertEquals(60, sword.getJsonObject("properties").getInteger("damage"));
+                });
+                return databaseService.mutateInventory(InventoryMutation.update(1, "Nonexistent", "weapon", null));
+            })
+            .onSuccess(v -> testContext.failNow("Updating a missing item must fail"))
+            .onFailure(error -> {
+                testContext.verify(() -> assertEquals(404, ((InventoryMutationException) error).statusCode()));
+                testContext.completeNow();
+            });
+    }
+    
+    @Test
+    void testConcurrentWritesGroupCommitInSubmissionOrder(VertxTestContext testContext) {
+        // Submitted without waiting, so they share batches; order within a user must hold
+        List<Future<Void>> writes = List.of(
+            databaseService.mutateInventory(InventoryMutation.grant(3, "Raid Token", "currency", 5, null)),
+            databaseService.mutateInventory(InventoryMutation.consume(3, "Raid Token", 3)),
+            databaseService.mutateInventory(InventoryMutation.grant(2, "Raid Token", "currency", 1, null)),
+            databaseService.mutateInventory(InventoryMutation.consume(3, "Raid Token", 2)),
+            databaseService.mutateInventory(InventoryMutation.grant(3, "Raid Token", "currency", 7, null)));
+        
+        Future.all(writes)
+            .compose(v -> quantityOf(3, "Raid Token"))
+            .onSuccess(quantity -> {
+                testContext.verify(() -> {
+                    assertEquals(7, quantity);
+                    JsonObject stats = databaseService.getInventoryWriteStats();
+                    assertEquals(5L, stats.getLong("committed"));
+                    assertTrue(stats.getLong("batches") < 5, stats.encode());
+                });
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testFailedWriteDoesNotFailItsBatch(VertxTestContext testContext) {
+        Future<Void> good = databaseService.mutateInventory(InventoryMutation.grant(2, "Rune", "material", 1, null));
+        // Bypasses HTTP validation; the column check constraint rejects non-object JSON
+        Future<Void> bad = databaseService.mutateInventory(InventoryMutation.grant(2, "Bad Rune", "material", 1, "[1]"));
+        Future<Void> after = databaseService.mutateInventory(InventoryMutation.grant(2, "Rune", "material", 1, null));
+        
+        Future.join(good, bad, after)
+            .onComplete(ar -> testContext.verify(() -> {
+                assertTrue(good.succeeded());
+                assertTrue(bad.failed());
+                assertTrue(after.succeeded());
+            }))
+            .transform(ar -> quantityOf(2, "Rune"))
+            .onSuccess(quantity -> {
+                testContext.verify(() -> assertEquals(2, quantity));
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testGrantBeyondMaximumQuantityIsRejected(VertxTestContext testContext) {
+        databaseService.mutateInventory(InventoryMutation.grant(2, "Gold Coin", "currency", Integer.MAX_VALUE - 1, null))
+            .compose(v -> {
+                // In one batch with a valid write, which must still commit
+                Future<Void> overflow = databaseService.mutateInventory(InventoryMutation.grant(2, "Gold Coin", "currency", 2, null));
+                Future<Void> valid = databaseService.mutateInventory(InventoryMutation.grant(2, "Silver Coin", "currency", 2, null));
+                return valid.map(overflow);
+            })
+            .compose(overflow -> overflow.transform(ar -> {
+                testContext.verify(() -> {
+                    assertTrue(ar.failed());
+                    assertInstanceOf(InventoryMutationException.class, ar.cause());
+                    assertEquals(409, ((InventoryMutationException) ar.cause()).statusCode());
+                });
+                return quantityOf(2, "Gold Coin");
+            }))
+            .onSuccess(quantity -> {
+                testContext.verify(() -> assertEquals(Integer.MAX_VALUE - 1, quantity));
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testCommittedWriteInvalidatesCachedInventory(VertxTestContext testContext) {
+        databaseService.getUserInventoryItems(1)
+            .compose(cached -> databaseService.mutateInventory(InventoryMutation.grant(1, "Gold Coin", "currency", 10, null)))
+            .compose(v -> quantityOf(1, "Gold Coin"))
+            .onSuccess(quantity -> {
+                testContext.verify(() -> assertEquals(10, quantity));
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testInventoryVersionIncreasesOnlyForChangedUsers(VertxTestContext testContext) {
+        assertEquals(0L, databaseService.getInventoryVersion(1));
+        
+        databaseService.mutateInventory(InventoryMutation.grant(1, "Gold Coin", "currency", 10, null))
+            .compose(v -> databaseService.mutateInventory(InventoryMutation.consume(1, "Gold Coin", 5)))
+            .compose(v -> databaseService.mutateInventory(InventoryMutation.consume(1, "Gold Coin", 50)))
+            .onComplete(ar -> {
+                testContext.verify(() -> {
+                    // The rejected consume did not change anything
+                    assertInstanceOf(InventoryMutationException.class, ar.cause());
+                    assertEquals(2L, databaseService.getInventoryVersion(1));
+                    assertEquals(0L, databaseService.getInventoryVersion(2));
+                });
+                testContext.completeNow();
+            });
+    }
+    
+    @Test
+    void testPasswordsAreStoredHashed(VertxTestContext testContext) {
+        databaseService.client().query("SELECT password FROM users").execute()
+            .onSuccess(rows -> {
+                testContext.verify(() -> {
+                    assertEquals(3, rows.size());
+                    rows.forEach(row -> assertTrue(row.getString(0).startsWith("pbkdf2_sha256$"), row.getString(0)));
+                });
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testLegacyPlaintextPasswordIsUpgradedOnLogin(VertxTestContext testContext) {
+        DatabaseService cheap = new DatabaseService(vertx, "test_rehash_" + System.nanoTime(),
+            new JsonObject().put("auth.pbkdf2.iterations", 1_000));
+        cheap.init()
+            .compose(v -> cheap.client().query("INSERT INTO users (username, password) VALUES ('legacy', 'hunter2')").execute())
+            .compose(v -> cheap.authenticateUser("legacy", "hunter2"))
+            .compose(user -> {
+                testContext.verify(() -> assertEquals("legacy", user.getString("USERNAME")));
+                return waitForRehash(cheap, "legacy", 50);
+            })
+            .compose(stored -> {
+                testContext.verify(() -> assertTrue(stored.startsWith("pbkdf2_sha256$1000$"), stored));
+                return cheap.authenticateUser("legacy", "hunter2");
+            })
+            .onSuccess(user -> {
+                testContext.verify(() -> assertNotNull(user));
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    private Future<String> waitForRehash(DatabaseService service, String username, int attempts) {
+        return service.client().preparedQuery("SELECT password FROM users WHERE username = ?")
+            .execute(Tuple.of(username))
+            .compose(rows -> {
+                String stored = rows.iterator().next().getString(0);
+                if (stored.startsWith("pbkdf2_sha256$") || attempts == 0) {
+                    return Future.succeededFuture(stored);
+                }
+                return Future.<Void>future(promise -> vertx.setTimer(20, id -> promise.complete()))
+                    .compose(v -> waitForRehash(service, username, attempts - 1));
+            });
+    }
+    
+    @Test
+    void testPasswordVerificationShedsLoadWhenQueueIsFull(VertxTestContext testContext) {
+        DatabaseService limited = new DatabaseService(vertx, "test_hash_busy_" + System.nanoTime(),
+            new JsonObject().put("auth.hash.poolSize", 1).put("auth.hash.maxQueueSize", 1));
+        limited.init()
+            .compose(v -> {
+                List<Future<JsonObject>> logins = new ArrayList<>();
+                for (int i = 0; i < 6; i++) {
+                    logins.add(limited.authenticateUser("player1", "password123"));
+                }
+                return Future.join(new ArrayList<>(logins)).transform(ar -> Future.succeededFuture(logins));
+            })
+            .onSuccess(logins -> {
+                testContext.verify(() -> {
+                    long shed = logins.stream()
+                        .filter(login -> login.failed() && login.cause() instanceof ServiceBusyException)
+                        .count();
+                    assertTrue(logins.stream().anyMatch(Future::succeeded));
+                    assertTrue(shed > 0);
+                    assertEquals(shed, limited.getPasswordWorkerStats().getLong("rejected"));
+                });
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+}
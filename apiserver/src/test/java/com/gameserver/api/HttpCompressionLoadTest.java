@@ -0,0 +1,121 @@
+package com.gameserver.api;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.Timeout;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bytes on the wire and latency of a 200-item inventory over HTTP/1.1 and h2c, with and
+ * without gzip. Response bodies are counted as received, before any decompression.
+ */
+@Tag("perf")
+class HttpCompressionLoadTest extends BaseTest {
+
+    private static final int PORT = 8093;
+    private static final int ITEMS = 200;
+    private static final int REQUESTS = 4_000;
+    private static final int CONCURRENCY = 8;
+
+    @Test
+    @Timeout(value = 5, timeUnit = TimeUnit.MINUTES)
+    void testInventoryBytesAndLatency(VertxTestContext testContext) {
+        JsonObject config = new JsonObject()
+            .put("http.port", PORT)
+            .put("instances", 1)
+            .put("db.name", "test_compression_" + System.nanoTime());
+        DatabaseService databaseService = new DatabaseService(vertx, config.getString("db.name"), config);
+
+        ApiServerApplication app = new ApiServerApplication();
+        app.setDatabaseService(databaseService);
+
+        HttpClient http1 = vertx.createHttpClient(new HttpClientOptions().setMaxPoolSize(CONCURRENCY));
+        HttpClient h2c = vertx.createHttpClient(new HttpClientOptions()
+            .setProtocolVersion(HttpVersion.HTTP_2)
+            .setHttp2ClearTextUpgrade(false)
+            .setHttp2MaxPoolSize(1));
+
+        vertx.deployVerticle(app, new DeploymentOptions().setConfig(config))
+            .compose(id -> databaseService.client().query(
+                "INSERT INTO inventory (user_id, item_name, item_type, quantity, properties) "
+                    + "SELECT 1, 'Crafting Material ' || X, 'material', X, "
+                    + "JSON '{\"rarity\": \"common\", \"weight\": 1, \"stackable\": true}' "
+                    + "FROM SYSTEM_RANGE(1, " + (ITEMS - 3) + ")").execute())
+            .compose(v -> http1.request(HttpMethod.POST, PORT, "localhost", "/api/login")
+                .compose(request -> request.putHeader("content-type", "application/json")
+                    .send(TestUtils.createValidLoginRequest().encode()))
+                .compose(response -> response.body())
+                .map(body -> new JsonObject(body).getString("accessToken")))
+            .compose(token -> measure("warm-up", http1, token, "gzip")
+                .compose(v -> measure("HTTP/1.1 identity", http1, token, "identity"))
+                .compose(v -> measure("HTTP/1.1 gzip", http1, token, "gzip"))
+                .compose(v -> measure("h2c identity", h2c, token, "identity"))
+                .compose(v -> measure("h2c gzip", h2c, token, "gzip")))
+            .onSuccess(v -> testContext.completeNow())
+            .onFailure(testContext::failNow);
+    }
+
+    private Future<Void> measure(String label, HttpClient client, String token, String acceptEncoding) {
+        long[] latencies = new long[REQUESTS];
+        long[] bodyBytes = new long[1];
+        AtomicInteger issued = new AtomicInteger();
+        Promise<Void> done = Promise.promise();
+        AtomicInteger running = new AtomicInteger(CONCURRENCY);
+        long start = System.nanoTime();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            sendNext(client, token, acceptEncoding, issued, latencies, bodyBytes, done, running);
+        }
+        return done.future().map(v -> {
+            long elapsedNanos = System.nanoTime() - start;
+            Arrays.sort(latencies);
+            report("%-18s items=%d bytes/response=%d throughput=%.0f/s p50=%.2fms p99=%.2fms",
+                label, ITEMS, bodyBytes[0] / REQUESTS, REQUESTS / (elapsedNanos / 1e9),
+                DatabasePoolLoadTest.percentile(latencies, 0.50) / 1e6,
+                DatabasePoolLoadTest.percentile(latencies, 0.99) / 1e6);
+            return null;
+        });
+    }
+
+    private void sendNext(HttpClient client, String token, String acceptEncoding, AtomicInteger issued,
+                          long[] latencies, long[] bodyBytes, Promise<Void> done, AtomicInteger running) {
+        int index = issued.getAndIncrement();
+        if (index >= REQUESTS) {
+            if (running.decrementAndGet() == 0) {
+                done.tryComplete();
+            }
+            return;
+        }
+        long sent = System.nanoTime();
+        client.request(HttpMethod.GET, PORT, "localhost", "/api/inventory")
+            .compose(request -> request
+                .putHeader("Authorization", "Bearer " + token)
+                .putHeader("Accept-Encoding", acceptEncoding)
+                .send())
+            .compose(response -> {
+                assertEquals(200, response.statusCode());
+                assertEquals("gzip".equals(acceptEncoding) ? "gzip" : null,
+                    "identity".equals(response.getHeader("content-encoding")) ? null : response.getHeader("content-encoding"));
+                return response.body();
+            })
+            .onSuccess(body -> {
+                latencies[index] = System.nanoTime() - sent;
+                bodyBytes[0] += body.length();
+                sendNext(client, token, acceptEncoding, issued, latencies, bodyBytes, done, running);
+            })
+            .onFailure(done::tryFail);
+    }
+}
@@ -0,0 +1,283 @@
+package com.gameserver.api;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.http.WebSocketConnectOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTransportTest extends BaseTest {
+
+    private final int port = 8085;
+    private HttpClient client;
+
+    @AfterEach
+    void closeClient() {
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    private Future<String> deploy(JsonObject config) {
+        return ApiServerApplication.deploy(vertx, config
+            .put("http.port", port)
+            .put("instances", 1)
+            .put("db.name", "test_transport_" + System.nanoTime()));
+    }
+
+    private Future<String> login(HttpClient client) {
+        return client.request(new RequestOptions().setMethod(HttpMethod.POST).setPort(port).setHost("localhost").setURI("/api/login"))
+            .compose(request -> request.putHeader("content-type", "application/json")
+                .send(TestUtils.createValidLoginRequest().toBuffer()))
+            .compose(HttpClientResponse::body)
+            .map(body -> body.toJsonObject().getString("accessToken"));
+    }
+
+    private Future<HttpClientResponse> getInventory(HttpClient client, String accessToken) {
+        return client.request(new RequestOptions().setPort(port).setHost("localhost").setURI("/api/inventory")
+                .putHeader("Authorization", "Bearer " + accessToken)
+                .putHeader("Accept-Encoding", "gzip"))
+            .compose(request -> request.send());
+    }
+
+    @Test
+    void testOnlyResponsesAboveThresholdAreCompressed(VertxTestContext testContext) {
+        client = vertx.createHttpClient();
+
+        deploy(new JsonObject().put("http.compression.minSize", 256))
+            .compose(id -> login(client))
+            .compose(accessToken -> getInventory(client, accessToken))
+            .compose(response -> response.body().map(body -> {
+                assertEquals("gzip", response.getHeader("content-encoding"));
+                JsonObject inventory = gunzip(body).toJsonObject();
+                assertEquals(3, inventory.getJsonArray("inventory").size());
+                return null;
+            }))
+            .compose(v -> getInventory(client, "bogus"))
+            .compose(response -> response.body().map(body -> {
+                // A short error body is sent as is
+                assertEquals(401, response.statusCode());
+                assertNull(response.getHeader("content-encoding"));
+                assertEquals("Invalid or expired token", body.toJsonObject().getString("error"));
+                return null;
+            }))
+            .onSuccess(v -> testContext.completeNow())
+            .onFailure(testContext::failNow);
+    }
+
+    @Test
+    void testServerTimingHeaderIsOffByDefault(VertxTestContext testContext) {
+        client = vertx.createHttpClient();
+
+        // Every request sampled, so only the header switch keeps the stages private
+        deploy(new JsonObject().put("timing.sampleRate", 1.0))
+            .compose(id -> login(client))
+            .compose(accessToken -> getInventory(client, accessToken))
+            .onSuccess(response -> testContext.verify(() -> {
+                assertEquals(200, response.statusCode());
+                assertNull(response.getHeader("Server-Timing"));
+                testContext.completeNow();
+            }))
+            .onFailure(testContext::failNow);
+    }
+
+    @Test
+    void testCleartextHttp2WithPriorKnowledge(VertxTestContext testContext) {
+        client = vertx.createHttpClient(new HttpClientOptions()
+            .setProtocolVersion(HttpVersion.HTTP_2)
+            .setHttp2ClearTextUpgrade(false));
+
+        deploy(new JsonObject().put("http.compression.minSize", 256))
+            .compose(id -> login(client))
+            .compose(accessToken -> getInventory(client, accessToken))
+            .compose(response -> response.body().map(body -> {
+                assertEquals(HttpVersion.HTTP_2, response.version());
+                assertEquals(200, response.statusCode());
+                assertEquals("gzip", response.getHeader("content-encoding"));
+                assertEquals(1, gunzip(body).toJsonObject().getInteger("userId"));
+                return null;
+            }))
+            .onSuccess(v -> testContext.completeNow())
+            .onFailure(testContext::failNow);
+    }
+
+    @Test
+    void testTlsNegotiatesHttp2WithAlpn(@TempDir Path dir, VertxTestContext testContext) throws Exception {
+        Path keyStore = dir.resolve("server.p12");
+        Process keytool = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+            "-genkeypair", "-alias", "server", "-keyalg", "RSA", "-keysize", "2048", "-validity", "1",
+            "-dname", "CN=localhost", "-storetype", "PKCS12", "-keystore", keyStore.toString(),
+            "-storepass", "changeit", "-keypass", "changeit")
+            .inheritIO()
+            .start();
+        assertEquals(0, keytool.waitFor());
+
+        client = vertx.createHttpClient(new HttpClientOptions()
+            .setSsl(true)
+            .setTrustAll(true)
+            .setVerifyHost(false)
+            .setUseAlpn(true)
+            .setProtocolVersion(HttpVersion.HTTP_2));
+
+        deploy(new JsonObject()
+                .put("http.tls.keyStorePath", keyStore.toString())
+                .put("http.tls.keyStorePassword", "changeit"))
+            .compose(id -> login(client))
+            .compose(accessToken -> getInventory(client, accessToken))
+            .onSuccess(response -> {
+                testContext.verify(() -> {
+                    assertEquals(HttpVersion.HTTP_2, response.version());
+                    assertEquals(200, response.statusCode());
+                });
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+
+    private Future<HttpClientResponse> get(String uri, String acceptEncoding, String ifNoneMatch) {
+        RequestOptions options = new RequestOptions().setPort(port).setHost("localhost").setURI(uri)
+            .putHeader("Accept-Encoding", acceptEncoding);
+        if (ifNoneMatch != null) {
+            options.putHeader("If-None-Match", ifNoneMatch);
+        }
+        return client.request(options).compose(request -> request.send());
+    }
+
+    @Test
+    void testTestClientIsServedPrecompressedWithStrongETags(VertxTestContext testContext) {
+        client = vertx.createHttpClient();
+
+        deploy(new JsonObject())
+            .compose(id -> get("/testclient/script.js", "identity", null))
+            .compose(identity -> identity.body().compose(plain -> get("/testclient/script.js", "gzip, deflate", null)
+                .compose(gzip -> gzip.body().map(compressed -> {
+                    assertEquals(200, identity.statusCode());
+                    assertNull(identity.getHeader("content-encoding"));
+                    assertTrue(identity.getHeader("content-type").startsWith("text/javascript"));
+                    assertEquals("public, max-age=86400", identity.getHeader("cache-control"));
+                    assertEquals("Accept-Encoding", identity.getHeader("vary"));
+
+                    assertEquals("gzip", gzip.getHeader("content-encoding"));
+                    assertTrue(compressed.length() < plain.length() / 2);
+                    assertEquals(plain, gunzip(compressed));
+                    assertFalse(gzip.getHeader("etag").startsWith("W/"));
+                    assertNotEquals(identity.getHeader("etag"), gzip.getHeader("etag"));
+                    return gzip.getHeader("etag");
+                }))))
+            .compose(etag -> get("/testclient/script.js", "gzip", etag))
+            .compose(notModified -> {
+                assertEquals(304, notModified.statusCode());
+                return get("/testclient/", "gzip", null);
+            })
+            .compose(index -> {
+                assertEquals(200, index.statusCode());
+                assertEquals("no-cache", index.getHeader("cache-control"));
+                assertTrue(index.getHeader("content-type").startsWith("text/html"));
+                return get("/testclient", "gzip", null);
+            })
+            .compose(redirect -> {
+                assertEquals(301, redirect.statusCode());
+                assertEquals("/testclient/", redirect.getHeader("location"));
+                return get("/testclient/missing.js", "gzip", null);
+            })
+            .onSuccess(missing -> {
+                testContext.verify(() -> assertEquals(404, missing.statusCode()));
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+
+    @Test
+    void testPrecompressedTestClientIsNotCompressedAgainOverHttp2(VertxTestContext testContext) {
+        client = vertx.createHttpClient(new HttpClientOptions()
+            .setProtocolVersion(HttpVersion.HTTP_2)
+            .setHttp2ClearTextUpgrade(false));
+
+        deploy(new JsonObject())
+            .compose(id -> get("/testclient/styles.css", "identity", null))
+            .compose(identity -> identity.body().compose(plain -> get("/testclient/styles.css", "gzip", null)
+                .compose(gzip -> gzip.body().map(compressed -> {
+                    assertEquals(HttpVersion.HTTP_2, gzip.version());
+                    assertEquals("gzip", gzip.getHeader("content-encoding"));
+                    assertEquals(plain, gunzip(compressed));
+                    assertTrue(gzip.getHeader("etag").startsWith("W/"));
+                    return null;
+                }))))
+            .onSuccess(v -> testContext.completeNow())
+            .onFailure(testContext::failNow);
+    }
+
+    @Test
+    void testSlowWebSocketSubscriberIsResyncedInsteadOfBuffered(VertxTestContext testContext) {
+        client = vertx.createHttpClient();
+        JsonObject config = new JsonObject().put("inventory.push.maxQueuedBytes", 4096);
+        int published = 1000;
+        String delta = new JsonObject().put("type", "delta").put("padding", "x".repeat(32 * 1024)).encode();
+        AtomicInteger deltasReceived = new AtomicInteger();
+        Promise<JsonObject> resync = Promise.promise();
+
+        deploy(config)
+            .compose(id -> login(client))
+            .compose(accessToken -> client.webSocket(new WebSocketConnectOptions().setPort(port).setHost("localhost")
+                .setURI("/api/inventory/updates").addHeader("Authorization", "Bearer " + accessToken)))
+            .onSuccess(webSocket -> webSocket.textMessageHandler(text -> {
+                JsonObject message = new JsonObject(text);
+                switch (message.getString("type")) {
+                    case "subscribed" -> {
+                        // Stop reading, then publish far more than the socket buffers can hold
+                        webSocket.pause();
+                        String address = DatabaseService.inventoryChangesAddress(config.getString("db.name"), 1);
+                        for (int i = 0; i < published; i++) {
+                            vertx.eventBus().publish(address, delta);
+                        }
+                        vertx.setTimer(500, t -> webSocket.resume());
+                    }
+                    case "delta" -> deltasReceived.incrementAndGet();
+                    case "resync" -> resync.tryComplete(message);
+                    default -> testContext.failNow("Unexpected message " + text);
+                }
+            }))
+            .compose(webSocket -> resync.future())
+            .compose(message -> client.request(new RequestOptions().setPort(port).setHost("localhost").setURI("/metrics"))
+                .compose(request -> request.send())
+                .compose(HttpClientResponse::body)
+                .map(metrics -> {
+                    testContext.verify(() -> {
+                        assertEquals(0, message.getLong("version"));
+                        assertTrue(deltasReceived.get() < published, "received " + deltasReceived.get());
+                        String dropped = metrics.toString().lines()
+                            .filter(line -> line.startsWith("gameserver_inventory_push_dropped_total "))
+                            .findFirst().orElseThrow();
+                        assertEquals(published - deltasReceived.get(), Long.parseLong(dropped.split(" ")[1]));
+                    });
+                    return null;
+                }))
+            .onSuccess(v -> testContext.completeNow())
+            .onFailure(testContext::failNow);
+    }
+
+    static Buffer gunzip(Buffer body) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body.getBytes()))) {
+            return Buffer.buffer(in.readAllBytes());
+        } catch (Exception e) {
+            throw new AssertionError("Body is not gzip", e);
+        }
+    }
+}
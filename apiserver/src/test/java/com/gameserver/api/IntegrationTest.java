@@ -1,5 +1,6 @@
 package com.gameserver.api;
 
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.WebClient;
@@ -26,14 +27,13 @@ class IntegrationTest extends BaseTest {
         ApiServerApplication app = new ApiServerApplication();
         app.setDatabaseService(dbService);
         
-        vertx.deployVerticle(app)
+        DeploymentOptions options = new DeploymentOptions()
+            .setConfig(new JsonObject().put("http.port", port));
+        
+        vertx.deployVerticle(app, options)
             .onSuccess(id -> {
                 deploymentId = id;
-                vertx.createHttpServer()
-                    .requestHandler(app.createRouter())
-                    .listen(port)
-                    .onSuccess(server -> testContext.completeNow())
-                    .onFailure(testContext::failNow);
+                testContext.completeNow();
             })
             .onFailure(testContext::failNow);
     }
@@ -170,4 +170,38 @@ class IntegrationTest extends BaseTest {
             })
             .onFailure(testContext::failNow);
     }
-}
\ No newline at end of file
+    
+    @Test
+    void testMetricsEndpointReportsRequests(VertxTestContext testContext) {
+        client.post(port, "localhost", "/api/login")
+            .sendJsonObject(TestUtils.createInvalidLoginRequest())
+            .compose(v -> client.post(port, "localhost", "/api/login").sendJsonObject(TestUtils.createValidLoginRequest()))
+            .compose(login -> client.get(port, "localhost", "/api/inventory")
+                .putHeader("Authorization", "Bearer " + login.bodyAsJsonObject().getString("accessToken"))
+                .send())
+            .compose(v -> client.get(port, "localhost", "/api/inventory").putHeader("Authorization", "Bearer bogus").send())
+            .compose(v -> client.get(port, "localhost", "/metrics").send())
+            .onSuccess(response -> {
+                testContext.verify(() -> {
+                    assertEquals(200, response.statusCode());
+                    assertTrue(response.getHeader("content-type").startsWith("text/plain; version=0.0.4"));
+                    String body = response.bodyAsString();
+                    
+                    assertTrue(body.contains("# TYPE gameserver_http_request_duration_seconds histogram"));
+                    assertTrue(body.contains("gameserver_http_request_duration_seconds_count{route=\"/api/login\"} 2"));
+                    assertTrue(body.contains("gameserver_http_request_duration_seconds_bucket{route=\"/api/inventory\",le=\"+Inf\"} 2"));
+                    assertTrue(body.contains("gameserver_http_responses_total{route=\"/api/login\",status=\"401\"} 1"));
+                    assertTrue(body.contains("gameserver_http_responses_total{route=\"/api/login\",status=\"200\"} 1"));
+                    assertTrue(body.contains("gameserver_http_responses_total{route=\"/api/inventory\",status=\"401\"} 1"));
+                    assertTrue(body.contains("gameserver_jwt_verified_total 1"));
+                    assertTrue(body.contains("gameserver_jwt_failed_total 1"));
+                    assertTrue(body.contains("gameserver_db_pool_active "));
+                    assertTrue(body.contains("gameserver_db_pool_waiting "));
+                    assertTrue(body.contains("gameserver_event_loop_lag_seconds_count "));
+                    assertTrue(body.contains("gameserver_login_rate_limit_username_allowed_total 2"));
+                });
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+}
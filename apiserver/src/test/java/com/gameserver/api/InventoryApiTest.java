@@ -1,5 +1,13 @@
 package com.gameserver.api;
 
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.UpgradeRejectedException;
+import io.vertx.core.http.WebSocketConnectOptions;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.WebClient;
@@ -32,6 +40,12 @@ class InventoryApiTest extends BaseTest {
             .onFailure(testContext::failNow);
     }
     
+    private Future<String> login(String username, String password) {
+        return client.post(port, "localhost", "/api/login")
+            .sendJsonObject(new JsonObject().put("username", username).put("password", password))
+            .map(response -> response.bodyAsJsonObject().getString("accessToken"));
+    }
+    
     @BeforeEach
     void deployVerticle(VertxTestContext testContext) {
         client = WebClient.create(vertx);
@@ -42,14 +56,16 @@ class InventoryApiTest extends BaseTest {
         ApiServerApplication app = new ApiServerApplication();
         app.setDatabaseService(dbService);
         
-        vertx.deployVerticle(app)
+        DeploymentOptions options = new DeploymentOptions()
+            .setConfig(new JsonObject()
+                .put("http.port", port)
+                .put("timing.sampleRate", 1.0)
+                .put("timing.header.enabled", true));
+        
+        vertx.deployVerticle(app, options)
             .onSuccess(id -> {
                 deploymentId = id;
-                vertx.createHttpServer()
-                    .requestHandler(app.createRouter())
-                    .listen(port)
-                    .onSuccess(server -> testContext.completeNow())
-                    .onFailure(testContext::failNow);
+                testContext.completeNow();
             })
             .onFailure(testContext::failNow);
     }
@@ -295,4 +311,573 @@ class InventoryApiTest extends BaseTest {
                 .onFailure(testContext::failNow);
         }, testContext);
     }
-}
\ No newline at end of file
+    
+    @Test
+    void testGetInventoryPaginated(VertxTestContext testContext) {
+        loginAndExecute("player1", "password123", accessToken -> {
+            client.get(port, "localhost", "/api/inventory?limit=2")
+                .putHeader("Authorization", "Bearer " + accessToken)
+                .send()
+                .compose(first -> {
+                    JsonObject body = first.bodyAsJsonObject();
+                    testContext.verify(() -> {
+                        assertEquals(200, first.statusCode());
+                        assertEquals(2, body.getJsonArray("inventory").size());
+                        assertTrue(body.getString("next").startsWith("Iron Sword,"));
+                    });
+                    return client.get(port, "localhost", "/api/inventory")
+                        .addQueryParam("limit", "2")
+                        .addQueryParam("after", body.getString("next"))
+                        .putHeader("Authorization", "Bearer " + accessToken)
+                        .send();
+                })
+                .onSuccess(second -> {
+                    testContext.verify(() -> {
+                        assertEquals(200, second.statusCode());
+                        JsonObject body = second.bodyAsJsonObject();
+                        JsonArray inventory = body.getJsonArray("inventory");
+                        assertEquals(1, inventory.size());
+                        assertEquals("Leather Armor", inventory.getJsonObject(0).getString("item_name"));
+                        assertTrue(body.containsKey("next"));
+                        assertNull(body.getString("next"));
+                    });
+                    testContext.completeNow();
+                })
+                .onFailure(testContext::failNow);
+        }, testContext);
+    }
+    
+    @Test
+    void testGetInventoryInvalidPageParameters(VertxTestContext testContext) {
+        loginAndExecute("player1", "password123", accessToken -> {
+            client.get(port, "localhost", "/api/inventory?limit=0")
+                .putHeader("Authorization", "Bearer " + accessToken)
+                .send()
+                .compose(zeroLimit -> {
+                    testContext.verify(() -> assertEquals(400, zeroLimit.statusCode()));
+                    return client.get(port, "localhost", "/api/inventory?after=Iron%20Sword")
+                        .putHeader("Authorization", "Bearer " + accessToken)
+                        .send();
+                })
+                .onSuccess(missingId -> {
+                    testContext.verify(() -> {
+                        assertEquals(400, missingId.statusCode());
+                        assertEquals("Invalid after or limit parameter", missingId.bodyAsJsonObject().getString("error"));
+                    });
+                    testContext.completeNow();
+                })
+                .onFailure(testContext::failNow);
+        }, testContext);
+    }
+    
+    @Test
+    void testGetInventoryStreamedMatchesBuffered(VertxTestContext testContext) {
+        loginAndExecute("player1", "password123", accessToken -> {
+            client.get(port, "localhost", "/api/inventory")
+                .putHeader("Authorization", "Bearer " + accessToken)
+                .send()
+                .compose(buffered -> client.get(port, "localhost", "/api/inventory?stream=true")
+                    .putHeader("Authorization", "Bearer " + accessToken)
+                    .send()
+                    .onSuccess(streamed -> testContext.verify(() -> {
+                        assertEquals(200, streamed.statusCode());
+                        assertEquals("chunked", streamed.getHeader("transfer-encoding"));
+                        assertEquals(buffered.bodyAsJsonObject(), streamed.bodyAsJsonObject());
+                    })))
+                .onSuccess(v -> testContext.completeNow())
+                .onFailure(testContext::failNow);
+        }, testContext);
+    }
+    
+    @Test
+    void testStalledStreamReleasesItsConnection(VertxTestContext testContext) {
+        int streamPort = 8094;
+        JsonObject config = new JsonObject()
+            .put("http.port", streamPort)
+            .put("inventory.cache.maxItems", 0)
+            .put("inventory.stream.maxConcurrent", 1)
+            .put("inventory.stream.idleTimeoutMs", 500);
+        DatabaseService dbService = new DatabaseService(vertx, "test_stream_stall_" + System.nanoTime(), config);
+        ApiServerApplication app = new ApiServerApplication();
+        app.setDatabaseService(dbService);
+        HttpClient httpClient = vertx.createHttpClient();
+        
+        // Far more than the socket buffers hold, so a client that stops reading stalls the stream
+        vertx.deployVerticle(app, new DeploymentOptions().setConfig(config))
+            .compose(id -> dbService.client().query(
+                "INSERT INTO inventory (user_id, item_name, item_type, quantity, properties) "
+                    + "SELECT 1, 'Bulk ' || X, 'material', 1, JSON '{\"weight\": 1}' "
+                    + "FROM SYSTEM_RANGE(1, 200000)").execute())
+            .compose(v -> client.post(streamPort, "localhost", "/api/login")
+                .sendJsonObject(TestUtils.createValidLoginRequest())
+                .map(response -> response.bodyAsJsonObject().getString("accessToken")))
+            .compose(token -> httpClient.request(HttpMethod.GET, streamPort, "localhost", "/api/inventory?stream=true")
+                .compose(request -> request.putHeader("Authorization", "Bearer " + token).send())
+                .compose(stalled -> {
+                    // The server cuts the connection once the stream has been idle too long
+                    stalled.exceptionHandler(error -> { });
+                    stalled.pause();
+                    testContext.verify(() -> {
+                        assertEquals(200, stalled.statusCode());
+                        assertEquals(1, dbService.getPoolStats().getInteger("streams"));
+                    });
+                    return client.get(streamPort, "localhost", "/api/inventory?stream=true")
+                        .putHeader("Authorization", "Bearer " + token)
+                        .send();
+                }))
+            .compose(rejected -> {
+                testContext.verify(() -> assertEquals(503, rejected.statusCode()));
+                Promise<Void> released = Promise.promise();
+                vertx.setPeriodic(50, timer -> {
+                    JsonObject stats = dbService.getPoolStats();
+                    if (stats.getInteger("streams") == 0 && stats.getInteger("active") == 0) {
+                        vertx.cancelTimer(timer);
+                        released.complete();
+                    }
+                });
+                return released.future();
+            })
+            .onSuccess(v -> testContext.verify(() -> {
+                assertEquals(1L, dbService.getPoolStats().getLong("streamsRejected"));
+                testContext.completeNow();
+            }))
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testGetInventoryBatch(VertxTestContext testContext) {
+        loginAndExecute("admin", "admin123", accessToken -> {
+            client.post(port, "localhost", "/api/inventory/batch")
+                .putHeader("Authorization", "Bearer " + accessToken)
+                .sendJsonObject(new JsonObject().put("userIds", new JsonArray().add(2).add(1).add(42)))
+                .onSuccess(response -> {
+                    testContext.verify(() -> {
+                        assertEquals(200, response.statusCode());
+                        JsonArray inventories = response.bodyAsJsonObject().getJsonArray("inventories");
+                        assertEquals(3, inventories.size());
+                        assertEquals(2, inventories.getJsonObject(0).getInteger("userId"));
+                        assertEquals(2, inventories.getJsonObject(0).getJsonArray("inventory").size());
+                        assertEquals(1, inventories.getJsonObject(1).getInteger("userId"));
+                        assertEquals(3, inventories.getJsonObject(1).getJsonArray("inventory").size());
+                        assertEquals(42, inventories.getJsonObject(2).getInteger("userId"));
+                        assertTrue(inventories.getJsonObject(2).getJsonArray("inventory").isEmpty());
+                    });
+                    testContext.completeNow();
+                })
+                .onFailure(testContext::failNow);
+        }, testContext);
+    }
+    
+    @Test
+    void testGetInventoryBatchRejectsInvalidUserIds(VertxTestContext testContext) {
+        loginAndExecute("admin", "admin123", accessToken -> {
+            client.post(port, "localhost", "/api/inventory/batch")
+                .putHeader("Authorization", "Bearer " + accessToken)
+                .sendJsonObject(new JsonObject().put("userIds", new JsonArray().add(1).add("two")))
+                .compose(mixed -> {
+                    testContext.verify(() -> assertEquals(400, mixed.statusCode()));
+                    return client.post(port, "localhost", "/api/inventory/batch")
+                        .putHeader("Authorization", "Bearer " + accessToken)
+                        .sendJsonObject(new JsonObject().put("userIds", "1,2"));
+                })
+                .onSuccess(notArray -> {
+                    testContext.verify(() -> {
+                        assertEquals(400, notArray.statusCode());
+                        assertEquals("userIds must be a non-empty array of integers",
+                            notArray.bodyAsJsonObject().getString("error"));
+                    });
+                    testContext.completeNow();
+                })
+                .onFailure(testContext::failNow);
+        }, testContext);
+    }
+    
+    @Test
+    void testGetInventoryBatchRequiresAdmin(VertxTestContext testContext) {
+        loginAndExecute("player1", "password123", accessToken -> {
+            client.post(port, "localhost", "/api/inventory/batch")
+                .putHeader("Authorization", "Bearer " + accessToken)
+                .sendJsonObject(new JsonObject().put("userIds", new JsonArray().add(2)))
+                .onSuccess(response -> {
+                    testContext.verify(() -> {
+                        assertEquals(403, response.statusCode());
+                        assertEquals("Admin access required", response.bodyAsJsonObject().getString("error"));
+                    });
+                    testContext.completeNow();
+                })
+                .onFailure(testContext::failNow);
+        }, testContext);
+    }
+    
+    @Test
+    void testGetInventoryBatchRequiresToken(VertxTestContext testContext) {
+        client.post(port, "localhost", "/api/inventory/batch")
+            .sendJsonObject(new JsonObject().put("userIds", new JsonArray().add(1)))
+            .onSuccess(response -> {
+                testContext.verify(() -> assertEquals(401, response.statusCode()));
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    @Test
+    void testInventoryAndLoginAreEncodedInTheAcceptedFormat(VertxTestContext testContext) {
+        Buffer expectedCbor = InventoryBinaryWriter.encode(BinaryWriter::cbor, 3, java.util.List.of(
+            new InventoryItem("Admin Key", "special", 1,
+                "{\"access_level\":\"admin\"}".getBytes(java.nio.charset.StandardCharsets.UTF_8))));
+        loginAndExecute("admin", "admin123", accessToken -> {
+            client.get(port, "localhost", "/api/inventory")
+                .putHeader("Authorization", "Bearer " + accessToken)
+                .putHeader("Accept", "application/json;q=0.5, application/cbor")
+                .send()
+                .compose(cbor -> {
+                    testContext.verify(() -> {
+                        assertEquals(200, cbor.statusCode());
+                        assertEquals("application/cbor", cbor.getHeader("content-type"));
+                        assertEquals("Accept", cbor.getHeader("Vary"));
+                        assertEquals(expectedCbor, cbor.body());
+                    });
+                    return client.get(port, "localhost", "/api/inventory?limit=10")
+                        .putHeader("Authorization", "Bearer " + accessToken)
+                        .putHeader("Accept", "application/msgpack")
+                        .send();
+                })
+                .compose(messagePackPage -> {
+                    testContext.verify(() -> {
+                        assertEquals("application/msgpack", messagePackPage.getHeader("content-type"));
+                        // map of 3: userId, inventory, next
+                        assertEquals((byte) 0x83, messagePackPage.body().getByte(0));
+                    });
+                    return client.post(port, "localhost", "/api/login")
+                        .putHeader("Accept", "application/msgpack")
+                        .sendJsonObject(new JsonObject().put("username", "admin").put("password", "admin123"));
+                })
+                .compose(messagePackLogin -> {
+                    testContext.verify(() -> {
+                        assertEquals(200, messagePackLogin.statusCode());
+                        assertEquals("application/msgpack", messagePackLogin.getHeader("content-type"));
+                        // map of 4, starting with "success": true
+                        assertEquals("84a773756363657373c3",
+                            java.util.HexFormat.of().formatHex(messagePackLogin.body().getBytes(0, 10)));
+                    });
+                    return client.get(port, "localhost", "/api/inventory")
+                        .putHeader("Authorization", "Bearer " + accessToken)
+                        .putHeader("Accept", "text/html, application/cbor;q=0")
+                        .send();
+                })
+                .onSuccess(fallback -> {
+                    testContext.verify(() -> {
+                        assertEquals("application/json", fallback.getHeader("content-type"));
+                        assertEquals(3, fallback.bodyAsJsonObject().getInteger("userId"));
+                    });
+                    testContext.completeNow();
+                })
+                .onFailure(testContext::failNow);
+        }, testContext);
+    }
+
+    @Test
+    void testInventoryChangesArePushedOverWebSocket(VertxTestContext testContext) {
+        HttpClient wsClient = vertx.createHttpClient();
+        Promise<JsonObject> subscribed = Promise.promise();
+        Promise<JsonObject> delta = Promise.promise();
+        
+        loginAndExecute("player2", "password456", accessToken -> {
+            wsClient.webSocket(new WebSocketConnectOptions().setPort(port).setHost("localhost")
+                    .setURI("/api/inventory/updates?access_token=" + accessToken))
+                .compose(webSocket -> {
+                    webSocket.textMessageHandler(text -> {
+                        JsonObject message = new JsonObject(text);
+                        (message.getString("type").equals("subscribed") ? subscribed : delta).tryComplete(message);
+                    });
+                    return subscribed.future();
+                })
+                .compose(first -> login("admin", "admin123")
+                    .compose(adminToken -> client.post(port, "localhost", "/api/inventory/grant")
+                        .putHeader("Authorization", "Bearer " + adminToken)
+                        .sendJsonObject(new JsonObject()
+                            .put("userId", 2)
+                            .put("item_name", "Phoenix Feather")
+                            .put("item_type", "material")
+                            .put("quantity", 3)
+                            .put("properties", new JsonObject().put("rarity", "legendary"))))
+                    .compose(grant -> delta.future())
+                    .map(change -> {
+                        testContext.verify(() -> {
+                            assertEquals("delta", change.getString("type"));
+                            assertTrue(change.getLong("version") > first.getLong("version"));
+                            JsonObject granted = change.getJsonArray("changes").getJsonObject(0);
+                            assertEquals("grant", granted.getString("kind"));
+                            assertEquals("Phoenix Feather", granted.getString("item_name"));
+                            assertEquals(3, granted.getInteger("quantity"));
+                            assertEquals("legendary", granted.getJsonObject("properties").getString("rarity"));
+                        });
+                        return null;
+                    }))
+                .compose(v -> wsClient.webSocket(port, "localhost", "/api/inventory/updates"))
+                .onComplete(unauthenticated -> {
+                    testContext.verify(() -> {
+                        assertTrue(unauthenticated.failed());
+                        assertEquals(401, ((UpgradeRejectedException) unauthenticated.cause()).getStatus());
+                    });
+                    testContext.completeNow();
+                });
+        }, testContext);
+    }
+    
+    @Test
+    void testGrantAndConsumeItem(VertxTestContext testContext) {
+        loginAndExecute("player2", "password456", accessToken -> {
+            login("admin", "admin123")
+                .compose(adminToken -> client.post(port, "localhost", "/api/inventory/grant")
+                    .putHeader("Authorization", "Bearer " + adminToken)
+                    .sendJsonObject(new JsonObject()
+                        .put("userId", 2)
+                        .put("item_name", "Phoenix Feather")
+                        .put("item_type", "material")
+                        .put("quantity", 3)
+                        .put("properties", new JsonObject().put("rarity", "legendary"))))
+                .compose(grant -> {
+                    testContext.verify(() -> assertEquals(200, grant.statusCode()));
+                    return client.post(port, "localhost", "/api/inventory/consume")
+                        .putHeader("Authorization", "Bearer " + accessToken)
+                        .sendJsonObject(new JsonObject().put("item_name", "Phoenix Feather").put("quantity", 5));
+                })
+                .compose(tooMany -> {
+                    testContext.verify(() -> {
+                        assertEquals(409, tooMany.statusCode());
+                        assertEquals("Insufficient quantity", tooMany.bodyAsJsonObject().getString("error"));
+                    });
+                    return client.post(port, "localhost", "/api/inventory/consume")
+                        .putHeader("Authorization", "Bearer " + accessToken)
+                        .sendJsonObject(new JsonObject().put("item_name", "Phoenix Feather"));
+                })
+                .compose(consume -> {
+                    testContext.verify(() -> assertEquals(200, consume.statusCode()));
+                    return client.get(port, "localhost", "/api/inventory")
+                        .putHeader("Authorization", "Bearer " + accessToken)
+                        .send();
+                })
+                .onSuccess(response -> {
+                    testContext.verify(() -> {
+                        JsonObject feather = TestUtils.getItem(response.bodyAsJsonObject().getJsonArray("inventory"), "Phoenix Feather");
+                        assertEquals(2, feather.getInteger("quantity"));
+                        assertEquals("legendary", feather.getJsonObject("properties").getString("rarity"));
+                    });
+                    testContext.completeNow();
+                })
+                .onFailure(testContext::failNow);
+        }, testContext);
+    }
+    
+    @Test
+    void testUpdateMissingItemReturnsNotFound(VertxTestContext testContext) {
+        loginAndExecute("admin", "admin123", accessToken -> {
+            client.post(port, "localhost", "/api/inventory/update")
+                .putHeader("Authorization", "Bearer " + accessToken)
+                .sendJsonObject(new JsonObject()
+                    .put("userId", 2)
+                    .put("item_name", "Iron Sword")
+                    .put("properties", new JsonObject().put("damage", 1)))
+                .onSuccess(response -> {
+                    testContext.verify(() -> assertEquals(404, response.statusCode()));
+                    testContext.completeNow();
+                })
+                .onFailure(testContext::failNow);
+        }, testContext);
+    }
+    
+    @Test
+    void testGrantAndUpdateRequireAdmin(VertxTestContext testContext) {
+        JsonObject grant = new JsonObject().put("userId", 1).put("item_name", "Gold Coin").put("item_type", "currency");
+        loginAndExecute("player1", "password123", accessToken -> {
+            client.post(port, "localhost", "/api/inventory/grant")
+                .putHeader("Authorization", "Bearer " + accessToken)
+                .sendJsonObject(grant)
+                .compose(forbiddenGrant -> {
+                    testContext.verify(() -> assertEquals(403, forbiddenGrant.statusCode()));
+                    return client.post(port, "localhost", "/api/inventory/update")
+                        .putHeader("Authorization", "Bearer " + accessToken)
+                        .sendJsonObject(new JsonObject().put("userId", 1).put("item_name", "Iron Sword")
+                            .put("properties", new JsonObject().put("damage", 9999)));
+                })
+                .compose(forbiddenUpdate -> {
+                    testContext.verify(() -> assertEquals(403, forbiddenUpdate.statusCode()));
+                    return login("admin", "admin123");
+                })
+                .compose(adminToken -> client.post(port, "localhost", "/api/inventory/grant")
+                    .putHeader("Authorization", "Bearer " + adminToken)
+                    .sendJsonObject(grant.copy().put("userId", 4242)))
+                .onSuccess(unknownUser -> {
+                    testContext.verify(() -> {
+                        assertEquals(404, unknownUser.statusCode());
+                        assertEquals("User not found", unknownUser.bodyAsJsonObject().getString("error"));
+                    });
+                    testContext.completeNow();
+                })
+                .onFailure(testContext::failNow);
+        }, testContext);
+    }
+    
+    @Test
+    void testMutationRejectsInvalidBody(VertxTestContext testContext) {
+        loginAndExecute("admin", "admin123", accessToken -> {
+            client.post(port, "localhost", "/api/inventory/grant")
+                .putHeader("Authorization", "Bearer " + accessToken)
+                .sendJsonObject(new JsonObject().put("userId", 2).put("item_name", "Rock").put("item_type", "junk").put("quantity", 0))
+                .compose(zeroQuantity -> {
+                    testContext.verify(() -> assertEquals(400, zeroQuantity.statusCode()));
+                    return client.post(port, "localhost", "/api/inventory/grant")
+                        .putHeader("Authorization", "Bearer " + accessToken)
+                        .sendJsonObject(new JsonObject().put("userId", 2).put("item_name", "Rock").put("item_type", "junk")
+                            .put("properties", new JsonArray().add(1)));
+                })
+                .compose(arrayProperties -> {
+                    testContext.verify(() -> assertEquals(400, arrayProperties.statusCode()));
+                    return client.post(port, "localhost", "/api/inventory/grant")
+                        .putHeader("Authorization", "Bearer " + accessToken)
+                        .sendJsonObject(new JsonObject().put("userId", 2).put("item_name", "Rock").put("item_type", "junk")
+                            .put("quantity", Integer.MAX_VALUE + 2L));
+                })
+                .onSuccess(hugeQuantity -> {
+                    testContext.verify(() -> {
+                        assertEquals(400, hugeQuantity.statusCode());
+                        assertTrue(hugeQuantity.bodyAsJsonObject().getString("error").startsWith("item_name and item_type are required"));
+                    });
+                    testContext.completeNow();
+                })
+                .onFailure(testContext::failNow);
+        }, testContext);
+    }
+    
+    @Test
+    void testServerTimingHeaderBreaksDownStages(VertxTestContext testContext) {
+        loginAndExecute("player1", "password123", accessToken -> {
+            client.get(port, "localhost", "/api/inventory")
+                .putHeader("Authorization", "Bearer " + accessToken)
+                .send()
+                .onSuccess(response -> {
+                    testContext.verify(() -> {
+                        assertEquals(200, response.statusCode());
+                        String serverTiming = response.getHeader("Server-Timing");
+                        assertNotNull(serverTiming);
+                        assertTrue(serverTiming.matches(
+                            "auth;dur=[0-9.]+, db;dur=[0-9.]+, encode;dur=[0-9.]+, total;dur=[0-9.]+"), serverTiming);
+                    });
+                    testContext.completeNow();
+                })
+                .onFailure(testContext::failNow);
+        }, testContext);
+    }
+    
+    @Test
+    void testRecentTimingsRequireAdmin(VertxTestContext testContext) {
+        loginAndExecute("player1", "password123", playerToken -> {
+            client.get(port, "localhost", "/api/inventory")
+                .putHeader("Authorization", "Bearer " + playerToken)
+                .send()
+                .compose(v -> client.get(port, "localhost", "/admin/timings")
+                    .putHeader("Authorization", "Bearer " + playerToken)
+                    .send())
+                .onSuccess(forbidden -> testContext.verify(() -> assertEquals(403, forbidden.statusCode())))
+                .compose(v -> client.post(port, "localhost", "/api/login")
+                    .sendJsonObject(new JsonObject().put("username", "admin").put("password", "admin123")))
+                .compose(login -> client.get(port, "localhost", "/admin/timings?limit=2")
+                    .putHeader("Authorization", "Bearer " + login.bodyAsJsonObject().getString("accessToken"))
+                    .send())
+                .onSuccess(response -> {
+                    testContext.verify(() -> {
+                        assertEquals(200, response.statusCode());
+                        JsonArray timings = response.bodyAsJsonObject().getJsonArray("timings");
+                        assertEquals(2, timings.size());
+                        
+                        // Newest first: the admin login, then player1's inventory read
+                        JsonObject login = timings.getJsonObject(0);
+                        assertEquals("/api/login", login.getString("path"));
+                        assertTrue(login.getJsonObject("stages").containsKey("credentials"));
+                        JsonObject inventory = timings.getJsonObject(1);
+                        assertEquals("GET", inventory.getString("method"));
+                        assertEquals("/api/inventory", inventory.getString("path"));
+                        assertEquals(200, inventory.getInteger("status"));
+                        assertTrue(inventory.getDouble("totalMs") >= inventory.getJsonObject("stages").getDouble("db"));
+                    });
+                    testContext.completeNow();
+                })
+                .onFailure(testContext::failNow);
+        }, testContext);
+    }
+    
+    @Test
+    void testConditionalGetReturnsNotModifiedUntilInventoryChanges(VertxTestContext testContext) {
+        loginAndExecute("player1", "password123", accessToken -> {
+            client.get(port, "localhost", "/api/inventory")
+                .putHeader("Authorization", "Bearer " + accessToken)
+                .send()
+                .compose(first -> {
+                    String etag = first.getHeader("ETag");
+                    testContext.verify(() -> {
+                        assertEquals(200, first.statusCode());
+                        assertNotNull(etag);
+                        assertTrue(etag.startsWith("W/\""), etag);
+                        assertEquals("Accept", first.getHeader("Vary"));
+                    });
+                    return client.get(port, "localhost", "/api/inventory")
+                        .putHeader("Authorization", "Bearer " + accessToken)
+                        .putHeader("If-None-Match", "\"stale\", " + etag)
+                        .send()
+                        .map(notModified -> {
+                            testContext.verify(() -> {
+                                assertEquals(304, notModified.statusCode());
+                                assertEquals(etag, notModified.getHeader("ETag"));
+                                assertNull(notModified.body());
+                                // Answered without touching the database
+                                assertFalse(notModified.getHeader("Server-Timing").contains("db;"));
+                            });
+                            return etag;
+                        });
+                })
+                .compose(etag -> client.get(port, "localhost", "/api/inventory")
+                    .putHeader("Authorization", "Bearer " + accessToken)
+                    .putHeader("Accept", "application/cbor")
+                    .putHeader("If-None-Match", etag)
+                    .send()
+                    .map(otherFormat -> {
+                        // Same inventory version, different representation
+                        testContext.verify(() -> {
+                            assertEquals(200, otherFormat.statusCode());
+                            assertEquals("application/cbor", otherFormat.getHeader("content-type"));
+                            assertNotEquals(etag, otherFormat.getHeader("ETag"));
+                        });
+                        return etag;
+                    }))
+                .compose(etag -> login("admin", "admin123")
+                    .compose(adminToken -> client.post(port, "localhost", "/api/inventory/grant")
+                        .putHeader("Authorization", "Bearer " + adminToken)
+                        .sendJsonObject(new JsonObject().put("userId", 1).put("item_name", "Gold Coin").put("item_type", "currency")))
+                    .compose(grant -> client.get(port, "localhost", "/api/inventory")
+                        .putHeader("Authorization", "Bearer " + accessToken)
+                        .putHeader("If-None-Match", etag)
+                        .send())
+                    .map(changed -> {
+                        testContext.verify(() -> {
+                            assertEquals(200, changed.statusCode());
+                            assertNotEquals(etag, changed.getHeader("ETag"));
+                            assertNotNull(TestUtils.getItem(changed.bodyAsJsonObject().getJsonArray("inventory"), "Gold Coin"));
+                        });
+                        return null;
+                    }))
+                .onSuccess(v -> testContext.completeNow())
+                .onFailure(testContext::failNow);
+        }, testContext);
+    }
+    
+    @Test
+    void testEtagMatching() {
+        assertTrue(ApiServerApplication.etagMatches("W/\"abc.1\"", "W/\"abc.1\""));
+        assertTrue(ApiServerApplication.etagMatches("\"abc.1\"", "W/\"abc.1\""));
+        assertTrue(ApiServerApplication.etagMatches("\"x\" , W/\"abc.1\"", "W/\"abc.1\""));
+        assertTrue(ApiServerApplication.etagMatches("*", "W/\"abc.1\""));
+        assertFalse(ApiServerApplication.etagMatches("W/\"abc.2\"", "W/\"abc.1\""));
+        assertFalse(ApiServerApplication.etagMatches(null, "W/\"abc.1\""));
+    }
+}
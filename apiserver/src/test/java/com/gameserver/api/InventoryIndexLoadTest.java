@@ -0,0 +1,112 @@
+package com.gameserver.api;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.Timeout;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.sqlclient.Tuple;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("perf")
+class InventoryIndexLoadTest extends BaseTest {
+
+    private static final int USERS = 100_000;
+    private static final int ITEMS_PER_USER = 50;
+    private static final int LOOKUPS = 20_000;
+    private static final int CONCURRENCY = 16;
+
+    @Test
+    @Timeout(value = 20, timeUnit = TimeUnit.MINUTES)
+    void testIndexedInventoryLookupOnLargeData(@TempDir Path dataDir, VertxTestContext testContext) {
+        JsonObject config = new JsonObject()
+            .put("db.mode", "file")
+            .put("db.path", dataDir.resolve("gameserver").toString())
+            .put("db.cacheSizeKb", 262144)
+            .put("inventory.cache.maxItems", 0);
+        DatabaseService databaseService = new DatabaseService(vertx, "index_load", config);
+
+        databaseService.init()
+            .compose(v -> databaseService.client().query(
+                "INSERT INTO users (username, password) "
+                    + "SELECT 'bulk' || X, 'secret' FROM SYSTEM_RANGE(1, " + USERS + ")").execute())
+            .compose(v -> seedInventory(databaseService))
+            .compose(v -> databaseService.client().preparedQuery("EXPLAIN " + DatabaseService.USER_INVENTORY_SQL)
+                .execute(Tuple.of(USERS / 2)))
+            .compose(rows -> {
+                String plan = rows.iterator().next().getString(0);
+                testContext.verify(() -> {
+                    assertTrue(plan.contains("IDX_INVENTORY_USER_ITEM"), plan);
+                    assertTrue(plan.contains("index sorted"), plan);
+                });
+                return run(databaseService, LOOKUPS / 4).compose(v -> run(databaseService, LOOKUPS));
+            })
+            .map(latencies -> {
+                Arrays.sort(latencies);
+                report("getUserInventory over %d users x %d items: lookups=%d concurrency=%d p50=%.1fus p99=%.1fus",
+                    USERS, ITEMS_PER_USER, LOOKUPS, CONCURRENCY,
+                    DatabasePoolLoadTest.percentile(latencies, 0.50) / 1000.0,
+                    DatabasePoolLoadTest.percentile(latencies, 0.99) / 1000.0);
+                return (Void) null;
+            })
+            .eventually(v -> databaseService.close())
+            .onSuccess(v -> testContext.completeNow())
+            .onFailure(testContext::failNow);
+    }
+
+    private Future<Void> seedInventory(DatabaseService databaseService) {
+        // One statement per item slot: keeps transactions small and scatters each user's rows
+        Future<Void> chain = Future.succeededFuture();
+        for (int item = 0; item < ITEMS_PER_USER; item++) {
+            String insert = "INSERT INTO inventory (user_id, item_name, item_type, quantity, properties) "
+                + "SELECT 3 + X, 'Item " + item + "', 'material', 1, JSON '{\"weight\": 1}' "
+                + "FROM SYSTEM_RANGE(1, " + USERS + ")";
+            chain = chain.compose(v -> databaseService.client().query(insert).execute().mapEmpty());
+        }
+        return chain;
+    }
+
+    private Future<long[]> run(DatabaseService databaseService, int total) {
+        long[] latencies = new long[total];
+        AtomicInteger issued = new AtomicInteger();
+        List<Future<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            Promise<Void> promise = Promise.promise();
+            next(databaseService, latencies, issued, promise);
+            workers.add(promise.future());
+        }
+        return Future.all(workers).map(v -> latencies);
+    }
+
+    private void next(DatabaseService databaseService, long[] latencies, AtomicInteger issued, Promise<Void> promise) {
+        int index = issued.getAndIncrement();
+        if (index >= latencies.length) {
+            promise.complete();
+            return;
+        }
+        int userId = 4 + ThreadLocalRandom.current().nextInt(USERS);
+        long start = System.nanoTime();
+        databaseService.getUserInventory(userId)
+            .onSuccess(inventory -> {
+                latencies[index] = System.nanoTime() - start;
+                if (inventory.size() != ITEMS_PER_USER) {
+                    promise.fail("Expected " + ITEMS_PER_USER + " items for user " + userId + " but got " + inventory.size());
+                    return;
+                }
+                next(databaseService, latencies, issued, promise);
+            })
+            .onFailure(promise::fail);
+    }
+}
@@ -0,0 +1,98 @@
+package com.gameserver.api;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.Timeout;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.sqlclient.Tuple;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("perf")
+class InventoryStreamingLoadTest extends BaseTest {
+
+    private static final int PORT = 8091;
+    private static final int ITEMS = 500_000;
+    private static final int SEED_CHUNK = 50_000;
+
+    @Test
+    @Timeout(value = 10, timeUnit = TimeUnit.MINUTES)
+    void testStreamedInventoryKeepsHeapFlat(VertxTestContext testContext) {
+        JsonObject config = new JsonObject()
+            .put("http.port", PORT)
+            .put("instances", 1)
+            .put("db.name", "test_streaming_" + System.nanoTime())
+            .put("inventory.cache.maxItems", 0);
+        DatabaseService databaseService = new DatabaseService(vertx, config.getString("db.name"), config);
+        HttpClient client = vertx.createHttpClient();
+
+        ApiServerApplication app = new ApiServerApplication();
+        app.setDatabaseService(databaseService);
+
+        vertx.deployVerticle(app, new DeploymentOptions().setConfig(config))
+            .compose(id -> seedInventory(databaseService))
+            .compose(v -> client.request(HttpMethod.POST, PORT, "localhost", "/api/login")
+                .compose(request -> request.putHeader("content-type", "application/json")
+                    .send(TestUtils.createValidLoginRequest().encode()))
+                .compose(response -> response.body())
+                .map(body -> new JsonObject(body).getString("accessToken")))
+            .compose(token -> measure(client, token, "/api/inventory?stream=true")
+                .compose(v -> measure(client, token, "/api/inventory")))
+            .onSuccess(v -> testContext.completeNow())
+            .onFailure(testContext::failNow);
+    }
+
+    private Future<Void> seedInventory(DatabaseService databaseService) {
+        Future<Void> chain = Future.succeededFuture();
+        for (int offset = 0; offset < ITEMS; offset += SEED_CHUNK) {
+            String insert = "INSERT INTO inventory (user_id, item_name, item_type, quantity, properties) "
+                + "SELECT ?, 'Bulk ' || LPAD(X, 7, '0'), 'material', 1, JSON '{\"weight\": 1}' "
+                + "FROM SYSTEM_RANGE(?, ?)";
+            Tuple args = Tuple.of(1, offset + 1, offset + SEED_CHUNK);
+            chain = chain.compose(v -> databaseService.client().preparedQuery(insert).execute(args).mapEmpty());
+        }
+        return chain;
+    }
+
+    private Future<Void> measure(HttpClient client, String token, String uri) {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long baseline = runtime.totalMemory() - runtime.freeMemory();
+        AtomicLong peak = new AtomicLong(baseline);
+        AtomicLong bytes = new AtomicLong();
+        long sampler = vertx.setPeriodic(5, id -> peak.accumulateAndGet(runtime.totalMemory() - runtime.freeMemory(), Math::max));
+        long start = System.nanoTime();
+
+        Promise<Void> done = Promise.promise();
+        client.request(HttpMethod.GET, PORT, "localhost", uri)
+            .compose(request -> request.putHeader("Authorization", "Bearer " + token).send())
+            .onSuccess(response -> {
+                if (response.statusCode() != 200) {
+                    done.fail("Unexpected status " + response.statusCode());
+                    return;
+                }
+                response.handler(chunk -> bytes.addAndGet(chunk.length()));
+                response.endHandler(v -> done.complete());
+                response.exceptionHandler(done::fail);
+            })
+            .onFailure(done::fail);
+
+        return done.future().map(v -> {
+            vertx.cancelTimer(sampler);
+            report("%s items=%d bytes=%d elapsed=%dms peakHeapGrowth=%.1fMB",
+                uri, ITEMS, bytes.get(), (System.nanoTime() - start) / 1_000_000,
+                (peak.get() - baseline) / (1024.0 * 1024.0));
+            assertTrue(bytes.get() > ITEMS * 50L);
+            return null;
+        });
+    }
+}
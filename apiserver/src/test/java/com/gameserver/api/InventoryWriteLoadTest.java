@@ -0,0 +1,82 @@
+package com.gameserver.api;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.Timeout;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Simulates a raid ending: every player receives loot at once. Compares group commit
+ * with committing every grant in its own transaction (maxBatchSize = 1).
+ */
+@Tag("perf")
+class InventoryWriteLoadTest extends BaseTest {
+
+    private static final int USERS = 1_000;
+    private static final int GRANTS = 20_000;
+
+    @Test
+    @Timeout(value = 10, timeUnit = TimeUnit.MINUTES)
+    void testDropStormGroupCommit(@TempDir Path dataDir, VertxTestContext testContext) {
+        measure(dataDir.resolve("grouped"), 500)
+            .compose(v -> measure(dataDir.resolve("single"), 1))
+            .onSuccess(v -> testContext.completeNow())
+            .onFailure(testContext::failNow);
+    }
+
+    private Future<Void> measure(Path path, int maxBatchSize) {
+        // File mode so that every commit pays for a real log write
+        JsonObject config = new JsonObject()
+            .put("db.mode", "file")
+            .put("db.path", path.resolve("gameserver").toString())
+            .put("inventory.write.maxBatchSize", maxBatchSize)
+            .put("inventory.write.maxQueueSize", GRANTS);
+        DatabaseService databaseService = new DatabaseService(vertx, "write_load", config);
+
+        return databaseService.init()
+            .compose(v -> databaseService.client().query(
+                "INSERT INTO users (username, password) "
+                    + "SELECT 'raider' || X, 'secret' FROM SYSTEM_RANGE(1, " + USERS + ")").execute())
+            .compose(v -> {
+                long[] latencies = new long[GRANTS];
+                List<Future<Void>> grants = new ArrayList<>(GRANTS);
+                long start = System.nanoTime();
+                for (int i = 0; i < GRANTS; i++) {
+                    int index = i;
+                    long submitted = System.nanoTime();
+                    grants.add(databaseService.mutateInventory(InventoryMutation.grant(
+                            4 + i % USERS, "Loot " + (i / USERS % 5), "material", 1, null))
+                        .onSuccess(r -> latencies[index] = System.nanoTime() - submitted));
+                }
+                return Future.all(grants).map(r -> {
+                    long elapsedNanos = System.nanoTime() - start;
+                    Arrays.sort(latencies);
+                    JsonObject stats = databaseService.getInventoryWriteStats();
+                    report("maxBatchSize=%d grants=%d elapsed=%dms throughput=%.0f/s batches=%d p50=%.1fms p99=%.1fms",
+                        maxBatchSize, GRANTS, elapsedNanos / 1_000_000, GRANTS / (elapsedNanos / 1e9),
+                        stats.getLong("batches"),
+                        DatabasePoolLoadTest.percentile(latencies, 0.50) / 1e6,
+                        DatabasePoolLoadTest.percentile(latencies, 0.99) / 1e6);
+                    assertEquals((long) GRANTS, stats.getLong("committed"));
+                    return (Void) null;
+                });
+            })
+            .compose(v -> databaseService.client().query("SELECT SUM(quantity) FROM inventory WHERE user_id > 3").execute())
+            .map(rows -> {
+                assertEquals(GRANTS, rows.iterator().next().getInteger(0));
+                return (Void) null;
+            })
+            .eventually(v -> databaseService.close());
+    }
+}
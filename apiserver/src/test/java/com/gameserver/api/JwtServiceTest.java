@@ -1,6 +1,7 @@
 package com.gameserver.api;
 
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxTestContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -190,4 +191,72 @@ class JwtServiceTest extends BaseTest {
         String username = jwtService.getUsernameFromToken("invalid.token");
         assertNull(username);
     }
-}
\ No newline at end of file
+    
+    @Test
+    void testVerifyReturnsPrincipal() {
+        String token = jwtService.generateToken(42, "verifyuser");
+        
+        JwtPrincipal principal = jwtService.verify("Bearer " + token);
+        
+        assertEquals(42, principal.userId());
+        assertEquals("verifyuser", principal.username());
+        assertEquals(jwtService.extractClaims(token).getLong("exp"), principal.exp());
+    }
+    
+    @Test
+    void testVerifyRejectsTamperedPayload() {
+        String token = jwtService.generateToken(1, "player1");
+        String otherToken = jwtService.generateToken(3, "admin");
+        
+        String[] parts = token.split("\\.");
+        String[] otherParts = otherToken.split("\\.");
+        String tampered = parts[0] + "." + otherParts[1] + "." + parts[2];
+        
+        JwtVerificationException error = assertThrows(JwtVerificationException.class, () -> jwtService.verify(tampered));
+        assertEquals("Invalid token signature", error.getMessage());
+    }
+    
+    @Test
+    void testVerifyRejectsMalformedToken() {
+        assertThrows(JwtVerificationException.class, () -> jwtService.verify("invalid.token"));
+        assertThrows(JwtVerificationException.class, () -> jwtService.verify("a.b.c.d"));
+        assertThrows(JwtVerificationException.class, () -> jwtService.verify("invalid.token.here"));
+    }
+    
+    @Test
+    void testVerifyServesRepeatTokensFromCache() {
+        String token = jwtService.generateToken(7, "cacheduser");
+        
+        JwtPrincipal first = jwtService.verify(token);
+        JwtPrincipal second = jwtService.verify("Bearer " + token);
+        
+        assertSame(first, second);
+        assertEquals(1L, jwtService.getTokenCacheStats().getLong("hits"));
+        assertEquals(1L, jwtService.getTokenCacheStats().getLong("misses"));
+    }
+    
+    @Test
+    void testVerifyCacheDoesNotAcceptCachedSignatureWithOtherPayload() {
+        String token = jwtService.generateToken(1, "player1");
+        String otherToken = jwtService.generateToken(3, "admin");
+        jwtService.verify(token);
+        
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + otherToken.split("\\.")[1] + "." + parts[2];
+        
+        assertThrows(JwtVerificationException.class, () -> jwtService.verify(forged));
+    }
+    
+    @Test
+    void testVerifyCacheIsBounded(Vertx vertx) {
+        JwtService smallCache = new JwtService(vertx, new JsonObject().put("jwt.cache.maxSize", 16));
+        
+        for (int i = 0; i < 100; i++) {
+            smallCache.verify(smallCache.generateToken(i, "user" + i));
+        }
+        
+        JsonObject stats = smallCache.getTokenCacheStats();
+        assertTrue(stats.getInteger("size") <= 16);
+        assertTrue(stats.getLong("evictions") >= 84);
+    }
+}
@@ -0,0 +1,40 @@
+package com.gameserver.api;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    
+    @Test
+    void testBucketsCoverValuesWithinOneEighth() {
+        for (long micros = 0; micros < 1L << 24; micros = micros * 5 / 4 + 1) {
+            int index = LatencyHistogram.bucketIndex(micros);
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            long lower = index == 0 ? 0 : LatencyHistogram.bucketUpperBound(index - 1);
+            
+            assertTrue(lower <= micros && micros < upper, micros + " not in [" + lower + ", " + upper + ")");
+            assertTrue(upper - lower <= Math.max(1, lower / 8), "bucket too wide at " + micros);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+    
+    @Test
+    void testPercentilesAndCumulativeCounts() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(i * 1_000_000L);
+        }
+        
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1_000, snapshot.count());
+        assertEquals(500_500_000L, snapshot.sumMicros());
+        assertEquals(500_000, snapshot.percentileMicros(50), 500_000 / 8.0);
+        assertEquals(990_000, snapshot.percentileMicros(99), 990_000 / 8.0);
+        
+        // 2^20 microseconds is just over one second
+        assertEquals(1_000, snapshot.countBelow(1L << 20));
+        assertEquals(524, snapshot.countBelow(1L << 19));
+        assertEquals(1_000, snapshot.countBelow(1L << 40));
+    }
+}
@@ -1,5 +1,7 @@
 package com.gameserver.api;
 
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.HttpResponse;
@@ -27,15 +29,13 @@ class LoginApiTest extends BaseTest {
         ApiServerApplication app = new ApiServerApplication();
         app.setDatabaseService(dbService);
         
-        vertx.deployVerticle(app)
+        DeploymentOptions options = new DeploymentOptions()
+            .setConfig(new JsonObject().put("http.port", port));
+        
+        vertx.deployVerticle(app, options)
             .onSuccess(id -> {
                 deploymentId = id;
-                // Start HTTP server after database initialization
-                vertx.createHttpServer()
-                    .requestHandler(app.createRouter())
-                    .listen(port)
-                    .onSuccess(server -> testContext.completeNow())
-                    .onFailure(testContext::failNow);
+                testContext.completeNow();
             })
             .onFailure(testContext::failNow);
     }
@@ -176,7 +176,39 @@ class LoginApiTest extends BaseTest {
             })
             .onFailure(testContext::failNow);
     }
-    
+
+    @Test
+    void testLoginRejectsOversizedAndNonJsonBodies(VertxTestContext testContext) {
+        JsonObject oversized = new JsonObject()
+            .put("username", "player1")
+            .put("password", "x".repeat((int) ApiServerApplication.DEFAULT_MAX_BODY_SIZE));
+
+        client.post(port, "localhost", "/api/login")
+            .sendJsonObject(oversized)
+            .compose(tooLarge -> {
+                testContext.verify(() -> {
+                    assertEquals(413, tooLarge.statusCode());
+                    assertEquals("Request body is too large", tooLarge.bodyAsJsonObject().getString("error"));
+                });
+                return client.post(port, "localhost", "/api/login")
+                    .putHeader("content-type", "text/plain")
+                    .sendBuffer(TestUtils.createValidLoginRequest().toBuffer());
+            })
+            .compose(notJson -> {
+                testContext.verify(() -> assertEquals(415, notJson.statusCode()));
+                return client.post(port, "localhost", "/api/login")
+                    .sendJsonObject(new JsonObject().put("username", 42).put("password", "password123"));
+            })
+            .onSuccess(wrongType -> {
+                testContext.verify(() -> {
+                    assertEquals(400, wrongType.statusCode());
+                    assertEquals("Username and password are required", wrongType.bodyAsJsonObject().getString("error"));
+                });
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+
     @Test
     void testLoginWithAllSampleUsers(VertxTestContext testContext) {
         JsonObject[] users = {
@@ -208,4 +240,41 @@ class LoginApiTest extends BaseTest {
             })
             .onFailure(testContext::failNow);
     }
-}
\ No newline at end of file
+    
+    @Test
+    void testRepeatedFailuresForOneUsernameAreRateLimited(VertxTestContext testContext) {
+        JsonObject wrongPassword = new JsonObject()
+            .put("username", "player2")
+            .put("password", "guess");
+        
+        attemptLogin(wrongPassword, LoginRateLimiter.DEFAULT_USERNAME_BURST)
+            .compose(v -> client.post(port, "localhost", "/api/login").sendJsonObject(wrongPassword))
+            .onSuccess(response -> {
+                testContext.verify(() -> {
+                    assertEquals(429, response.statusCode());
+                    assertTrue(Integer.parseInt(response.getHeader("Retry-After")) >= 1);
+                    assertEquals("Too many login attempts", response.bodyAsJsonObject().getString("error"));
+                });
+            })
+            // Other usernames are not affected by player2's bucket
+            .compose(v -> client.post(port, "localhost", "/api/login")
+                .sendJsonObject(new JsonObject().put("username", "player1").put("password", "password123")))
+            .onSuccess(response -> {
+                testContext.verify(() -> assertEquals(200, response.statusCode()));
+                testContext.completeNow();
+            })
+            .onFailure(testContext::failNow);
+    }
+    
+    private Future<Void> attemptLogin(JsonObject request, int remaining) {
+        if (remaining == 0) {
+            return Future.succeededFuture();
+        }
+        return client.post(port, "localhost", "/api/login")
+            .sendJsonObject(request)
+            .compose(response -> {
+                assertEquals(401, response.statusCode());
+                return attemptLogin(request, remaining - 1);
+            });
+    }
+}
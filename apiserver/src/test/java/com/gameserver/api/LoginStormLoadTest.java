@@ -0,0 +1,124 @@
+package com.gameserver.api;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.junit5.Timeout;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Floods /api/login while other clients read /api/inventory, and reports p99 for both.
+ * Password hashing runs on its own bounded pool, so inventory reads should stay fast and
+ * excess logins should be shed with 503 rather than queue without bound.
+ */
+@Tag("perf")
+class LoginStormLoadTest extends BaseTest {
+
+    private static final int PORT = 8092;
+    private static final long DURATION_MS = 20_000;
+    private static final int LOGIN_CONCURRENCY = 64;
+    private static final int INVENTORY_CONCURRENCY = 16;
+
+    @Test
+    @Timeout(value = 5, timeUnit = TimeUnit.MINUTES)
+    void testLoginStormDoesNotStallInventoryReads(VertxTestContext testContext) {
+        JsonObject config = new JsonObject()
+            .put("http.port", PORT)
+            .put("instances", 1)
+            .put("login.rateLimit.enabled", false)
+            .put("db.name", "test_login_storm_" + System.nanoTime());
+        WebClient client = WebClient.create(vertx, new WebClientOptions()
+            .setMaxPoolSize(LOGIN_CONCURRENCY + INVENTORY_CONCURRENCY)
+            .setKeepAlive(true));
+
+        ApiServerApplication.deploy(vertx, config)
+            .compose(id -> client.post(PORT, "localhost", "/api/login")
+                .sendJsonObject(TestUtils.createValidLoginRequest())
+                .map(response -> response.bodyAsJsonObject().getString("accessToken")))
+            .compose(token -> {
+                long deadline = System.currentTimeMillis() + DURATION_MS;
+                Recorder logins = new Recorder();
+                Recorder inventory = new Recorder();
+                List<Future<Void>> workers = new ArrayList<>();
+                for (int i = 0; i < LOGIN_CONCURRENCY; i++) {
+                    workers.add(loop(deadline, logins, () -> client.post(PORT, "localhost", "/api/login")
+                        .sendJsonObject(TestUtils.createValidLoginRequest())
+                        .map(response -> response.statusCode())));
+                }
+                for (int i = 0; i < INVENTORY_CONCURRENCY; i++) {
+                    workers.add(loop(deadline, inventory, () -> client.get(PORT, "localhost", "/api/inventory")
+                        .putHeader("Authorization", "Bearer " + token)
+                        .send()
+                        .map(response -> response.statusCode())));
+                }
+                return Future.all(workers).map(v -> {
+                    logins.publish("/api/login");
+                    inventory.publish("/api/inventory");
+                    return (Void) null;
+                });
+            })
+            .onSuccess(v -> testContext.completeNow())
+            .onFailure(testContext::failNow);
+    }
+
+    private Future<Void> loop(long deadline, Recorder recorder, Supplier<Future<Integer>> request) {
+        Promise<Void> promise = Promise.promise();
+        next(deadline, recorder, request, promise);
+        return promise.future();
+    }
+
+    private void next(long deadline, Recorder recorder, Supplier<Future<Integer>> request,
+                      Promise<Void> promise) {
+        if (System.currentTimeMillis() >= deadline) {
+            promise.complete();
+            return;
+        }
+        long start = System.nanoTime();
+        request.get()
+            .onSuccess(status -> {
+                recorder.record(status, System.nanoTime() - start);
+                next(deadline, recorder, request, promise);
+            })
+            .onFailure(promise::fail);
+    }
+
+    private final class Recorder {
+        private final List<Long> latencies = new ArrayList<>();
+        private final LongAdder ok = new LongAdder();
+        private final LongAdder shed = new LongAdder();
+        private final AtomicInteger other = new AtomicInteger();
+
+        synchronized void record(int status, long nanos) {
+            latencies.add(nanos);
+            if (status == 200) {
+                ok.increment();
+            } else if (status == 503) {
+                shed.increment();
+            } else {
+                other.incrementAndGet();
+            }
+        }
+
+        synchronized void publish(String route) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            report("%s: requests=%d ok=%d shed503=%d other=%d p50=%.1fms p99=%.1fms max=%.1fms",
+                route, sorted.length, ok.sum(), shed.sum(), other.get(),
+                DatabasePoolLoadTest.percentile(sorted, 0.50) / 1e6,
+                DatabasePoolLoadTest.percentile(sorted, 0.99) / 1e6,
+                sorted[sorted.length - 1] / 1e6);
+        }
+    }
+}
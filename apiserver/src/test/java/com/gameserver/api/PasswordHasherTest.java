@@ -0,0 +1,48 @@
+package com.gameserver.api;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+    
+    private final PasswordHasher hasher = new PasswordHasher(1_000);
+    
+    @Test
+    void testHashVerifiesOnlyTheOriginalPassword() {
+        String stored = hasher.hash("password123");
+        
+        assertTrue(stored.startsWith("pbkdf2_sha256$1000$"));
+        assertTrue(hasher.verify("password123", stored));
+        assertFalse(hasher.verify("password124", stored));
+        assertFalse(hasher.verify("", stored));
+    }
+    
+    @Test
+    void testHashesAreSalted() {
+        assertNotEquals(hasher.hash("password123"), hasher.hash("password123"));
+    }
+    
+    @Test
+    void testStoredIterationCountIsUsedForVerification() {
+        String weaker = new PasswordHasher(500).hash("secret");
+        
+        assertTrue(hasher.verify("secret", weaker));
+        assertTrue(hasher.needsRehash(weaker));
+        assertFalse(hasher.needsRehash(hasher.hash("secret")));
+    }
+    
+    @Test
+    void testLegacyPlaintextIsVerifiedAndFlaggedForRehash() {
+        assertTrue(hasher.verify("password123", "password123"));
+        assertFalse(hasher.verify("password", "password123"));
+        assertTrue(hasher.needsRehash("password123"));
+    }
+    
+    @Test
+    void testMalformedHashNeverMatches() {
+        assertFalse(hasher.verify("secret", "pbkdf2_sha256$1000$not-base64!$x"));
+        assertFalse(hasher.verify("secret", "pbkdf2_sha256$1000$onlythree"));
+        assertFalse(hasher.verify("", hasher.dummyHash()));
+    }
+}
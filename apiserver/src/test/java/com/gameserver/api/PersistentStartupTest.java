@@ -0,0 +1,72 @@
+package com.gameserver.api;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.Timeout;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("perf")
+class PersistentStartupTest extends BaseTest {
+
+    private static final int USERS = 20_000;
+    private static final int ITEMS_PER_USER = 50;
+
+    @Test
+    @Timeout(value = 10, timeUnit = TimeUnit.MINUTES)
+    void testStartupTimeWithOneMillionInventoryRows(@TempDir Path dataDir, VertxTestContext testContext) {
+        JsonObject config = new JsonObject()
+            .put("db.mode", "file")
+            .put("db.path", dataDir.resolve("gameserver").toString())
+            .put("db.cacheSizeKb", 65536)
+            .put("db.compactOnClose", true);
+
+        DatabaseService seeding = new DatabaseService(vertx, "startup_seed", config);
+        long seedStart = System.nanoTime();
+
+        seeding.init()
+            .compose(v -> seeding.client().query(
+                "INSERT INTO users (username, password) "
+                    + "SELECT 'bulk' || X, 'secret' FROM SYSTEM_RANGE(1, " + USERS + ")").execute())
+            .compose(v -> seeding.client().query(
+                "INSERT INTO inventory (user_id, item_name, item_type, quantity, properties) "
+                    + "SELECT 3 + (X - 1) / " + ITEMS_PER_USER + " + 1, 'Item ' || MOD(X, " + ITEMS_PER_USER + "), "
+                    + "'material', MOD(X, 99) + 1, JSON '{\"weight\": 1}' "
+                    + "FROM SYSTEM_RANGE(1, " + USERS * ITEMS_PER_USER + ")").execute())
+            .compose(v -> seeding.close())
+            .compose(v -> {
+                report("seeded %d inventory rows in %d ms",
+                    USERS * ITEMS_PER_USER, (System.nanoTime() - seedStart) / 1_000_000);
+
+                DatabaseService restarted = new DatabaseService(vertx, "startup_restart", config);
+                long start = System.nanoTime();
+                return restarted.init()
+                    .compose(v2 -> {
+                        long initMillis = (System.nanoTime() - start) / 1_000_000;
+                        return restarted.getUserInventory(USERS / 2)
+                            .map(inventory -> {
+                                long firstQueryMillis = (System.nanoTime() - start) / 1_000_000;
+                                report("restart: init=%d ms, first inventory query=%d ms (%d items)",
+                                    initMillis, firstQueryMillis, inventory.size());
+                                testContext.verify(() -> assertEquals(ITEMS_PER_USER, inventory.size()));
+                                return inventory;
+                            });
+                    })
+                    .compose(v2 -> restarted.client().query("SELECT COUNT(*) FROM inventory").execute())
+                    .map(rows -> {
+                        // Sample data must not be re-inserted on top of an existing database
+                        testContext.verify(() -> assertEquals(USERS * ITEMS_PER_USER + 6L, rows.iterator().next().getLong(0)));
+                        return (Void) null;
+                    })
+                    .eventually(v2 -> restarted.close());
+            })
+            .onSuccess(v -> testContext.completeNow())
+            .onFailure(testContext::failNow);
+    }
+}
@@ -0,0 +1,79 @@
+package com.gameserver.api;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.Checkpoint;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest extends BaseTest {
+
+    @Test
+    void testConcurrentLoadsShareOneResultOnEachCallersContext(VertxTestContext testContext) {
+        SingleFlight<Integer, String> flight = new SingleFlight<>();
+        Promise<String> query = Promise.promise();
+        AtomicInteger started = new AtomicInteger();
+        Context leaderContext = vertx.getOrCreateContext();
+        Context followerContext = vertx.getOrCreateContext();
+        Checkpoint delivered = testContext.checkpoint(2);
+
+        leaderContext.runOnContext(v -> {
+            flight.load(1, 0, () -> {
+                started.incrementAndGet();
+                return query.future();
+            }).onComplete(testContext.succeeding(result -> testContext.verify(() -> {
+                assertSame(leaderContext, Vertx.currentContext());
+                assertEquals("items", result);
+                delivered.flag();
+            })));
+
+            followerContext.runOnContext(w -> {
+                flight.load(1, 0, () -> {
+                    started.incrementAndGet();
+                    return Future.succeededFuture("second query");
+                }).onComplete(testContext.succeeding(result -> testContext.verify(() -> {
+                    assertSame(followerContext, Vertx.currentContext());
+                    assertEquals("items", result);
+                    assertEquals(1, started.get());
+                    assertEquals(1L, flight.stats().getLong("loads"));
+                    assertEquals(1L, flight.stats().getLong("coalesced"));
+                    assertEquals(0, flight.stats().getInteger("inFlight"));
+                    delivered.flag();
+                })));
+
+                leaderContext.runOnContext(x -> query.complete("items"));
+            });
+        });
+    }
+
+    @Test
+    void testNewerVersionDoesNotJoinOlderLoad(VertxTestContext testContext) {
+        SingleFlight<Integer, String> flight = new SingleFlight<>();
+        Promise<String> beforeWrite = Promise.promise();
+        Promise<String> afterWrite = Promise.promise();
+
+        vertx.getOrCreateContext().runOnContext(v -> {
+            Future<String> stale = flight.load(1, 0, beforeWrite::future);
+            Future<String> fresh = flight.load(1, 1, afterWrite::future);
+            // A caller that read the older version may share the newer load
+            Future<String> late = flight.load(1, 0, () -> Future.succeededFuture("unused"));
+            beforeWrite.complete("before write");
+            afterWrite.complete("after write");
+
+            Future.all(stale, fresh, late).onComplete(testContext.succeeding(all -> testContext.verify(() -> {
+                assertEquals("before write", stale.result());
+                assertEquals("after write", fresh.result());
+                assertEquals("after write", late.result());
+                assertEquals(2L, flight.stats().getLong("loads"));
+                assertEquals(1L, flight.stats().getLong("coalesced"));
+                testContext.completeNow();
+            })));
+        });
+    }
+}
@@ -0,0 +1,107 @@
+package com.gameserver.api;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.junit5.Timeout;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Tag("perf")
+class ThroughputScalingTest extends BaseTest {
+
+    private static final int PORT = 8090;
+    private static final int REQUESTS = 20_000;
+    private static final int CONCURRENCY = 64;
+
+    @Test
+    @Timeout(value = 5, timeUnit = TimeUnit.MINUTES)
+    void testInventoryThroughputScalesWithInstances(VertxTestContext testContext) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> instanceCounts = new ArrayList<>();
+        for (int n = 1; n < cores; n *= 2) {
+            instanceCounts.add(n);
+        }
+        instanceCounts.add(cores);
+
+        WebClient client = WebClient.create(vertx, new WebClientOptions()
+            .setMaxPoolSize(CONCURRENCY)
+            .setKeepAlive(true));
+
+        Future<Void> chain = Future.succeededFuture();
+        for (int instances : instanceCounts) {
+            chain = chain.compose(v -> measure(client, instances));
+        }
+        chain
+            .onSuccess(v -> testContext.completeNow())
+            .onFailure(testContext::failNow);
+    }
+
+    private Future<Void> measure(WebClient client, int instances) {
+        JsonObject config = new JsonObject()
+            .put("http.port", PORT)
+            .put("instances", instances)
+            .put("db.name", "test_throughput_" + instances + "_" + System.nanoTime());
+
+        return ApiServerApplication.deploy(vertx, config)
+            .compose(deploymentId -> login(client)
+                .compose(token -> {
+                    // Warm up before the measured run
+                    return run(client, token, REQUESTS / 4)
+                        .compose(v -> {
+                            long start = System.nanoTime();
+                            return run(client, token, REQUESTS).map(v2 -> System.nanoTime() - start);
+                        });
+                })
+                .map(elapsedNanos -> {
+                    double requestsPerSecond = REQUESTS / (elapsedNanos / 1_000_000_000.0);
+                    report("instances=%d requests=%d concurrency=%d throughput=%.0f req/s",
+                        instances, REQUESTS, CONCURRENCY, requestsPerSecond);
+                    return (Void) null;
+                })
+                .eventually(v -> vertx.undeploy(deploymentId)));
+    }
+
+    private Future<String> login(WebClient client) {
+        return client.post(PORT, "localhost", "/api/login")
+            .sendJsonObject(TestUtils.createValidLoginRequest())
+            .map(response -> response.bodyAsJsonObject().getString("accessToken"));
+    }
+
+    private Future<Void> run(WebClient client, String token, int total) {
+        AtomicInteger issued = new AtomicInteger();
+        List<Future<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            Promise<Void> promise = Promise.promise();
+            next(client, token, total, issued, promise);
+            workers.add(promise.future());
+        }
+        return Future.all(workers).mapEmpty();
+    }
+
+    private void next(WebClient client, String token, int total, AtomicInteger issued, Promise<Void> promise) {
+        if (issued.getAndIncrement() >= total) {
+            promise.complete();
+            return;
+        }
+        client.get(PORT, "localhost", "/api/inventory")
+            .putHeader("Authorization", "Bearer " + token)
+            .send()
+            .onSuccess(response -> {
+                if (response.statusCode() != 200) {
+                    promise.fail("Unexpected status " + response.statusCode());
+                    return;
+                }
+                next(client, token, total, issued, promise);
+            })
+            .onFailure(promise::fail);
+    }
+}
@@ -0,0 +1,69 @@
+package com.gameserver.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketLimiterTest {
+    
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    
+    @Test
+    void testBurstIsAllowedThenRejectedWithWaitTime() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 1.0, 1_000, now::get);
+        
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        long wait = limiter.tryAcquire("a");
+        assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(1), "wait " + wait);
+        
+        // Keys are independent
+        assertEquals(0, limiter.tryAcquire("b"));
+        assertEquals(4L, limiter.stats().getLong("allowed"));
+        assertEquals(1L, limiter.stats().getLong("rejected"));
+    }
+    
+    @Test
+    void testTokensRefillOverTime() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 2.0, 1_000, now::get);
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("a");
+        assertTrue(limiter.tryAcquire("a") > 0);
+        
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a") > 0);
+    }
+    
+    @Test
+    void testIdleBucketsAreEvicted() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(5, 1.0, 1_000, now::get);
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire("user" + i);
+        }
+        assertEquals(20, limiter.size());
+        
+        // Fully refilled buckets are dropped the next time their stripe is touched
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(0, limiter.tryAcquire("user" + i));
+        }
+        assertEquals(20, limiter.size());
+        assertEquals(20L, limiter.stats().getLong("evictions"));
+    }
+    
+    @Test
+    void testKeyCountIsBounded() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(5, 1.0, 128, now::get);
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("attacker" + i);
+        }
+        
+        assertTrue(limiter.size() <= 128, "size " + limiter.size());
+        assertEquals(10_000L, limiter.stats().getLong("allowed"));
+    }
+}